@@ -3,44 +3,70 @@ package general;
 import org.junit.Before;
 import org.junit.After;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
+import server.ServerLauncher;
+import server.ServerLaunchProfile;
+import server.ServerLifecycleManager;
+import server.ServerLogDrainer;
 
-import static general.CommonConstants.BASE_URL;
+import static general.CommonConstants.BASE_URL_FORMAT;
 import static general.CommonConstants.PATH_TO_SERVER_JAR;
 
 public abstract class BaseApiTest {
-    private static Process serverProcess;
+    // Each server gets a port of its own, so parallel forks can each run one
+    private static ServerLauncher.RunningServer server;
+    private static volatile String baseUrl;
 
+    private final ServerLifecycleManager.ServerControl serverControl = new ServerLifecycleManager.ServerControl() {
+        @Override
+        public void start() throws Exception {
+            startServer();
+        }
+
+        @Override
+        public void stop() throws Exception {
+            stopServer();
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+    };
+
+    // A fresh server per test, or with -Dserver.reuse=true one server kept for the whole run and reset in between
     @Before
+    public void acquireServer() throws Exception {
+        ServerLifecycleManager.getInstance().beforeTest(serverControl);
+    }
+
+    @After
+    public void releaseServer() throws Exception {
+        ServerLifecycleManager.getInstance().afterTest(serverControl);
+    }
+
+    // The base URL of the running server, ending in a slash
+    public static String getBaseUrl() {
+        return baseUrl;
+    }
+
     public void startServer() throws Exception {
         System.out.println("=======================Starting server...");
-        serverProcess = new ProcessBuilder("java", "-jar", PATH_TO_SERVER_JAR).start();
-
-        String endpointToTestConnection = BASE_URL + "docs";
-        for (int attempt = 0; attempt < 10; attempt++) {
-            try {
-                HttpURLConnection connection = (HttpURLConnection) new URL(endpointToTestConnection).openConnection();
-                Thread.sleep(500);
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    connection.disconnect();
-                    System.out.println("Server is up and running.\n");
-                    break;
-                }
-            } catch (Exception e) {
-                System.out.println("Waiting for server to start...");
-                Thread.sleep(1000);
-            }
+        ServerLaunchProfile profile = ServerLaunchProfile.fromSystemProperties();
+        if (!profile.isDefault()) {
+            System.out.println("Using server launch profile " + profile);
         }
+        // releaseServer() is skipped when acquiring fails, so a server that never answers is stopped by the launcher
+        server = ServerLauncher.start(PATH_TO_SERVER_JAR, profile, ServerLogDrainer.getLogFileFromSystemProperties());
+        baseUrl = String.format(BASE_URL_FORMAT, server.getPort());
+        System.out.println("Server is up and running: " + server.getTimings() + ".\n");
     }
 
-    @After
     public void stopServer() throws Exception {
         System.out.println("\nStopping server...");
-        if (serverProcess != null) {
-            serverProcess.destroy();
-            serverProcess.waitFor();
+        if (server != null) {
+            server.stop();
+            server = null;
             System.out.println("Server stopped.=======================\n");
         }
     }
-}
\ No newline at end of file
+}
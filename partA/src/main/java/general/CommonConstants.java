@@ -4,7 +4,8 @@ import categories.Category;
 import projects.Project;
 
 public class CommonConstants {
-    public static final String BASE_URL = "http://localhost:4567/";
+    // Every server listens on a port of its own from PortAllocator
+    public static final String BASE_URL_FORMAT = "http://localhost:%d/";
     public static final String PATH_TO_SERVER_JAR = "lib/runTodoManagerRestAPI-1.5.5.jar";
 
     public static final String CATEGORIES_ENDPOINT = "categories";
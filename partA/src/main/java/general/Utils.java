@@ -10,11 +10,13 @@ import java.nio.charset.StandardCharsets;
 import java.io.BufferedReader;
 import java.util.List;
 
+import server.ServerLifecycleManager;
+
 import static general.CommonConstants.*;
 
 public class Utils {
     public static HttpURLConnection request(String endpoint, String method, String acceptType, String contentType, String body) throws Exception {
-        URL url = new URL(BASE_URL + endpoint);
+        URL url = new URL(BaseApiTest.getBaseUrl() + endpoint);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
         connection.setRequestMethod(method);
@@ -30,7 +32,7 @@ public class Utils {
     }
 
     public static HttpURLConnection requestPATCH(String endpoint, String acceptType, String contentType) throws Exception {
-        URL url = new URL(BASE_URL + endpoint);
+        URL url = new URL(BaseApiTest.getBaseUrl() + endpoint);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
         connection.setRequestMethod(POST_METHOD);
@@ -55,7 +57,7 @@ public class Utils {
     }
 
     public static HttpURLConnection requestWithIdAndQueryParams(String endpoint, String method, String acceptType, String contentType, String id, String body, List<NameValuePair> queryParams) throws Exception {
-        String newEndpoint = BASE_URL + endpoint + "/" + id;
+        String newEndpoint = BaseApiTest.getBaseUrl() + endpoint + "/" + id;
 
         URI uri = new URIBuilder(newEndpoint).addParameters(queryParams).build();
 
@@ -89,6 +91,9 @@ public class Utils {
             response.append(line);
         }
 
+        // Lets a reused server's reset delete what the test created without listing every collection first
+        ServerLifecycleManager.getInstance().recordResponse(BaseApiTest.getBaseUrl(), connection.getRequestMethod(),
+                connection.getURL().toString(), connection.getResponseCode(), response.toString());
         return response.toString();
     }
 
@@ -2,15 +2,61 @@ package api;
 
 import com.google.gson.Gson;
 import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import server.BulkDeleter;
+import setup.FixtureNamespace;
+import setup.SystemHooks;
 
 public class Api {
-    private static final String BASE_URL = "http://localhost:4567";
     private static final Gson GSON = new Gson();
+    public static final String TRACKED_CLEANUP_PROPERTY = "cleanup.tracked";
+    private static final int CLEANUP_THREADS = 8;
+    private static final String[] COLLECTIONS = { "todos", "projects", "categories" };
+    // Shared by every scenario, its threads only send DELETEs
+    private static final ExecutorService CLEANUP = Executors.newFixedThreadPool(CLEANUP_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "tracked-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    public Api() {
-        RestAssured.baseURI = BASE_URL;
+    private final SystemHooks server;
+    private final CreatedEntities createdEntities = new CreatedEntities();
+    // Built for the scenario's server, RestAssured's static base URI would be shared by scenarios running in parallel
+    private RequestSpecification spec;
+    private String specBaseUrl;
+
+    public Api(SystemHooks server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts a request to the server of the current scenario.
+     */
+    public RequestSpecification given() {
+        String baseUrl = server.getBaseUrl();
+        if (spec == null || !baseUrl.equals(specBaseUrl)) {
+            RequestSpecBuilder builder = new RequestSpecBuilder().setBaseUri(baseUrl).addFilter(createdEntities);
+            if (server.getNamespace() != null) {
+                // Sharing the server, the scenario only sees and touches the objects of its own namespace
+                builder.addFilter(server.getNamespace());
+            }
+            spec = builder.build();
+            specBaseUrl = baseUrl;
+        }
+        return RestAssured.given(spec);
     }
 
     // --- Utility Methods ---
@@ -33,12 +79,12 @@ public class Api {
      */
     public void checkServiceStatus() {
         try {
-            Response response = RestAssured.get(BASE_URL + "/todos");
+            Response response = given().get("/todos");
             if (response.getStatusCode() < 200 || response.getStatusCode() >= 300) {
                 fail("Service is reachable but returned non-2xx status: " + response.getStatusCode());
             }
         } catch (Exception e) {
-            fail("Service is not running at " + BASE_URL
+            fail("Service is not running at " + server.getBaseUrl()
                     + ". Ensure java -jar runTodoManagerRestAPI-1.5.5.jar is executed.");
         }
     }
@@ -49,8 +95,7 @@ public class Api {
      * Sends a POST request to an endpoint with a JSON body.
      */
     public Response postRequest(String endpoint, String body) {
-        return RestAssured.given()
-                .baseUri(BASE_URL)
+        return given()
                 .header("Content-Type", "application/json")
                 .body(body)
                 .post(endpoint);
@@ -60,8 +105,7 @@ public class Api {
      * Sends a POST request to an endpoint with a specified Content-Type.
      */
     public Response postRequest(String endpoint, String body, String contentType) {
-        return RestAssured.given()
-                .baseUri(BASE_URL)
+        return given()
                 .header("Content-Type", contentType)
                 .body(body)
                 .post(endpoint);
@@ -71,8 +115,7 @@ public class Api {
      * Sends a PUT request to an endpoint with a specified Content-Type.
      */
     public Response putRequest(String endpoint, String body, String contentType) {
-        return RestAssured.given()
-                .baseUri(BASE_URL)
+        return given()
                 .header("Content-Type", contentType)
                 .body(body)
                 .put(endpoint);
@@ -82,7 +125,7 @@ public class Api {
      * Sends a GET request to an endpoint, defaulting Accept to application/json.
      */
     public Response getRequest(String endpoint) {
-        return RestAssured.given()
+        return given()
                 .header("Accept", "application/json")
                 .get(endpoint)
                 .then().extract().response();
@@ -92,7 +135,7 @@ public class Api {
      * Sends a GET request to an endpoint with a specific Accept header.
      */
     public Response getRequest(String endpoint, String acceptHeader) {
-        return RestAssured.given()
+        return given()
                 .header("Accept", acceptHeader)
                 .get(endpoint)
                 .then().extract().response();
@@ -102,7 +145,7 @@ public class Api {
      * Sends a DELETE request to an endpoint.
      */
     public Response deleteRequest(String endpoint) {
-        return RestAssured.given()
+        return given()
                 .delete(endpoint)
                 .then().extract().response();
     }
@@ -111,7 +154,7 @@ public class Api {
      * Sends a DELETE request to an endpoint with a specific Accept header.
      */
     public Response deleteRequest(String endpoint, String acceptHeader) {
-        return RestAssured.given()
+        return given()
             .header("Accept", acceptHeader)
             .delete(endpoint)
             .then().extract().response();
@@ -119,85 +162,165 @@ public class Api {
 
     // --- Cleanup Methods ---
     
-    // Note: To use the cleanup methods below, you'll need the DTO classes 
-    // for Todo, Projects, and Category to be available (e.g., in a 'models' package).
-    // I am including a simplified Category DTO for completeness, but you'll need 
-    // to ensure 'Todo' and 'Projects' DTOs are also available if you use this code.
+    /**
+     * Deletes all Todo items. Crucial for test isolation.
+     */
+    public void deleteAllTodos() {
+        deleteAll("todos");
+    }
 
-    // A simple DTO class for Category, as it was in the original CategoryApi
-    private static class CategoryDTO {
-        String id;
-        String title;
-        String description;
+    /**
+     * Deletes all Project items. Crucial for test isolation.
+     */
+    public void deleteAllProjects() {
+        deleteAll("projects");
     }
     
-    // A simplified DTO class for Project (assuming it has an getId method)
-    // NOTE: This relies on a 'Projects' class with a getId() method.
-    private static class Projects {
-        public String getId() { return id; }
-        String id;
-        // other fields...
+    /**
+     * Deletes all Category items.
+     */
+    public void deleteAllCategories() {
+        deleteAll("categories");
     }
-    
-    // A simplified DTO class for Todo (assuming it has an getId method)
-    // NOTE: This relies on a 'Todo' class with a getId() method.
-    private static class Todo {
-        public String getId() { return id; }
-        String id;
-        // other fields...
+
+    /**
+     * Deletes the objects of a collection the scenario can see, -Dbulk.concurrency of them at a time.
+     */
+    private void deleteAll(String collection) {
+        sweep(collection, Set.of());
     }
 
+    /**
+     * Deletes the objects of a collection the scenario can see except those in keepIds. Returns whether every
+     * delete succeeded.
+     */
+    private boolean sweep(String collection, Set<String> keepIds) {
+        try {
+            return BulkDeleter.fromSystemProperties(server.getBaseUrl())
+                    .deleteAll(collection, ownsTitle(), keepIds).getErrors() == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            fail("Could not delete the " + collection + " at " + server.getBaseUrl() + ": " + e.getMessage());
+        }
+        return false;
+    }
 
     /**
-     * Deletes all Todo items. Crucial for test isolation.
+     * The ids of every object the scenario can see, per collection.
      */
-    public void deleteAllTodos() {
-        Response response = getRequest("/todos", "application/json");
-        Todo[] todos = response.jsonPath().getObject("todos", Todo[].class);
-
-        if (todos != null) {
-            for (Todo todo : todos) {
-                if (todo.getId() != null) {
-                     RestAssured.given().delete("/todos/" + todo.getId());
-                }
-            }
+    private Map<String, Set<String>> listIds() {
+        Map<String, Set<String>> ids = new HashMap<>();
+        for (String collection : COLLECTIONS) {
+            ids.put(collection, listIds(collection));
         }
+        return ids;
+    }
+
+    private Set<String> listIds(String collection) {
+        try {
+            return BulkDeleter.fromSystemProperties(server.getBaseUrl()).listIds(collection, ownsTitle());
+        } catch (IOException e) {
+            fail("Could not list the " + collection + " at " + server.getBaseUrl() + ": " + e.getMessage());
+            return Set.of();
+        }
+    }
+
+    private Predicate<String> ownsTitle() {
+        FixtureNamespace namespace = server.getNamespace();
+        return namespace == null ? title -> true : namespace::owns;
+    }
+
+    private static boolean isTrackedCleanup() {
+        return Boolean.parseBoolean(System.getProperty(TRACKED_CLEANUP_PROPERTY, "true"));
     }
 
     /**
-     * Deletes all Project items. Crucial for test isolation.
+     * What the scenario's server held when it was last known clean. A namespace starts out owning nothing.
      */
-    public void deleteAllProjects() {
-        Response response = getRequest("/projects", "application/json");
-        Projects[] projects = response.jsonPath().getObject("projects", Projects[].class);
-
-        if (projects != null) {
-            for (Projects project : projects) {
-                if (project.getId() != null) {
-                    RestAssured.given().delete("/projects/" + project.getId());
-                }
-            }
+    private Map<String, Set<String>> getCleanupBaseline() {
+        return server.getNamespace() != null ? Map.of() : server.getCleanupBaseline();
+    }
+
+    /**
+     * Remembers what a server new to this thread holds before its first scenario touches it, so the cleanup after
+     * the scenario can tell what was left behind even without a Background.
+     */
+    public void recordCleanupBaseline() {
+        if (server.getNamespace() == null && server.getCleanupBaseline() == null) {
+            server.setCleanupBaseline(listIds());
         }
     }
-    
+
     /**
-     * Deletes all Category items.
+     * Empties the server for a Background. Only the first scenario on a server sweeps it, the cleanup after every
+     * scenario leaves it as empty as this found it. A namespace starts out empty and is never swept here.
+     * -Dcleanup.tracked=false sweeps before every scenario.
      */
-    public void deleteAllCategories() {
-        Response r = getRequest("/categories");
-        CategoryDTO[] cats = r.jsonPath().getObject("categories", CategoryDTO[].class);
-        if (cats != null) {
-            for (CategoryDTO c : cats) {
-                if (c != null && c.id != null) {
-                    deleteRequest("/categories/" + c.id);
-                }
+    public void deleteAllData() {
+        boolean sharedServer = server.getNamespace() != null;
+        if (isTrackedCleanup() && (sharedServer || server.isCleared())) {
+            return;
+        }
+        boolean swept = true;
+        for (String collection : COLLECTIONS) {
+            swept &= sweep(collection, Set.of());
+        }
+        if (!sharedServer) {
+            // Whatever a failed delete left is kept as the server's own, and the next Background tries again
+            server.setCleanupBaseline(listIds());
+            server.setCleared(swept);
+        }
+    }
+
+    /**
+     * Deletes what the scenario left on its server, after every scenario. The objects it created are deleted by id,
+     * then each collection is listed and only swept when it holds objects that were not there when the server was
+     * last known clean, such as ones created in ways that were not recorded. After a failed delete every collection
+     * is swept. -Dcleanup.tracked=false always sweeps.
+     */
+    public void deleteScenarioData() {
+        boolean sweepAll = !isTrackedCleanup() || !deleteCreatedData();
+        Map<String, Set<String>> baseline = getCleanupBaseline();
+        if (baseline == null) {
+            // Nothing is known of the server's own objects, a sweep could delete them
+            return;
+        }
+        boolean clean = true;
+        for (String collection : COLLECTIONS) {
+            Set<String> kept = baseline.getOrDefault(collection, Set.of());
+            if (sweepAll || !kept.containsAll(listIds(collection))) {
+                clean &= sweep(collection, kept);
             }
         }
+        if (!clean) {
+            // Left for the next Background to sweep completely
+            server.setCleared(false);
+        }
     }
 
-    public void deleteAllData() {
-        deleteAllTodos();
-        deleteAllProjects();
-        deleteAllCategories();
+    /**
+     * Deletes every object the scenario created, concurrently. Objects that are already gone count as deleted.
+     * Returns whether all of them are gone.
+     */
+    public boolean deleteCreatedData() {
+        List<Future<Response>> deletions = new ArrayList<>();
+        for (String endpoint : createdEntities.drain()) {
+            deletions.add(CLEANUP.submit(() -> deleteRequest(endpoint)));
+        }
+        boolean deleted = true;
+        for (Future<Response> deletion : deletions) {
+            try {
+                int status = deletion.get().getStatusCode();
+                deleted &= status == 200 || status == 404;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                // Left for the sweep
+                deleted = false;
+            }
+        }
+        return deleted;
     }
 }
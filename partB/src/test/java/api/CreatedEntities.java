@@ -0,0 +1,53 @@
+package api;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import server.ServerLifecycleManager;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the id of every todo, project and category a scenario creates, so its cleanup can delete exactly those
+ * instead of listing and deleting everything on the server. Sees every request of the scenario's {@link Api},
+ * including creations through relationship endpoints such as POST /todos/{id}/categories. The lifecycle manager is
+ * told about them too, so resetting a reused server deletes them without listing the server first.
+ */
+public class CreatedEntities implements Filter {
+    // Endpoints of the created objects, e.g. "/todos/7"
+    private final Set<String> created = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() != 201) {
+            return response;
+        }
+        // Linking an existing object answers 201 without a body, nothing new to delete
+        String path = ServerLifecycleManager.getCreatedPath(requestSpec.getMethod(), requestSpec.getURI(), 201,
+                response.asString());
+        if (path != null) {
+            String endpoint = "/" + path;
+            created.add(endpoint);
+            URI uri = URI.create(requestSpec.getURI());
+            ServerLifecycleManager.getInstance().recordCreated(uri.getScheme() + "://" + uri.getAuthority(), endpoint);
+        }
+        return response;
+    }
+
+    /**
+     * Hands out the recorded endpoints and forgets them.
+     */
+    public List<String> drain() {
+        List<String> endpoints = new ArrayList<>(created);
+        created.removeAll(endpoints);
+        return endpoints;
+    }
+}
@@ -0,0 +1,280 @@
+package setup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+// Lets scenarios share one server: every title a request sends gets the namespace's prefix, an empty one included,
+// responses come back without it and lists hide other namespaces' objects. An object is the namespace's when its title
+// starts with the prefix (owns()), which lists and cleanups both use. Objects the server stores untitled get the bare
+// prefix right after. Scenarios asserting server-assigned ids are tagged @ownServer and keep a server of their own
+public class FixtureNamespace implements Filter {
+    public static final String NAMESPACE_PROPERTY = "fixtures.namespace";
+    public static final String OWN_SERVER_TAG = "@ownServer";
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Pattern XML_TITLE = Pattern.compile("<title>([^<]*)</title>|<title/>");
+    private static final Pattern XML_ID = Pattern.compile("<id>([^<]+)</id>");
+    // Which collection an object created or updated through each endpoint is in
+    private static final Map<String, String> COLLECTIONS = Map.of(
+            "todos", "todos",
+            "projects", "projects",
+            "categories", "categories",
+            "tasks", "todos",
+            "tasksof", "projects");
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String prefix;
+
+    private FixtureNamespace(String prefix) {
+        this.prefix = prefix;
+    }
+
+    // Off unless -Dfixtures.namespace=true
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(NAMESPACE_PROPERTY);
+    }
+
+    // Unique across scenarios, in this JVM or another one on the same server
+    public static FixtureNamespace create() {
+        return new FixtureNamespace("ns" + UUID.randomUUID().toString().substring(0, 8) + "-");
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    // The one ownership rule, lists and cleanups both decide with it
+    public boolean owns(String title) {
+        return title != null && title.startsWith(prefix);
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        Object body = requestSpec.getBody();
+        if (body instanceof String) {
+            requestSpec.body(addPrefix((String) body));
+        }
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        String original = response.asString();
+        if (original == null || !original.contains("title")) {
+            return response;
+        }
+        claimIfUntitled(requestSpec, response.getStatusCode(), original);
+        String visible = hideOtherNamespaces(original).replace(prefix, "");
+        return visible.equals(original) ? response : new ResponseBuilder().clone(response).setBody(visible).build();
+    }
+
+    // A body without a title is sent as it is, so the server still rejects it where a title is mandatory
+    private String addPrefix(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                JsonObject object = JsonParser.parseString(trimmed).getAsJsonObject();
+                JsonElement title = object.get("title");
+                if (title != null && title.isJsonPrimitive()) {
+                    object.addProperty("title", prefix + title.getAsString());
+                    return GSON.toJson(object);
+                }
+            } catch (JsonParseException | IllegalStateException e) {
+                // Malformed on purpose, sent as it is
+            }
+            return body;
+        }
+        if (trimmed.startsWith("<")) {
+            Matcher title = XML_TITLE.matcher(body);
+            if (!title.find()) {
+                return body;
+            }
+            String value = title.group(1) == null ? "" : title.group(1);
+            return title.replaceFirst("<title>" + Matcher.quoteReplacement(prefix + value) + "</title>");
+        }
+        return body;
+    }
+
+    // Gives an object a successful create or update left untitled the bare prefix, so it stays in the namespace
+    private void claimIfUntitled(FilterableRequestSpecification requestSpec, int status, String body) {
+        String method = requestSpec.getMethod();
+        if ((status != 200 && status != 201) || !("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method))) {
+            return;
+        }
+        String id = getIdIfUntitled(body);
+        if (id == null) {
+            return;
+        }
+        URI uri = URI.create(requestSpec.getURI());
+        String[] segments = uri.getPath().replaceAll("^/+|/+$", "").split("/");
+        String collection = COLLECTIONS.get(segments[segments.length - 1]);
+        if (collection == null && segments.length > 1) {
+            // An update such as PUT /projects/3
+            collection = COLLECTIONS.get(segments[segments.length - 2]);
+        }
+        if (collection == null) {
+            return;
+        }
+        HttpRequest claim = HttpRequest.newBuilder(URI.create(uri.getScheme() + "://" + uri.getAuthority()
+                        + "/" + collection + "/" + id))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(Map.of("title", prefix))))
+                .build();
+        try {
+            HttpResponse<Void> claimed = CLIENT.send(claim, HttpResponse.BodyHandlers.discarding());
+            if (claimed.statusCode() != 200) {
+                throw new IllegalStateException("Could not add " + collection + "/" + id + " to namespace " + prefix
+                        + ": POST returned " + claimed.statusCode());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not add " + collection + "/" + id + " to namespace " + prefix, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while adding " + collection + "/" + id + " to namespace " + prefix, e);
+        }
+    }
+
+    // The id of the single object in the body when its title is empty or null, null otherwise
+    private static String getIdIfUntitled(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                JsonObject object = JsonParser.parseString(trimmed).getAsJsonObject();
+                JsonElement id = object.get("id");
+                JsonElement title = object.get("title");
+                boolean untitled = title != null && (title.isJsonNull() || (title.isJsonPrimitive() && title.getAsString().isEmpty()));
+                return untitled && id != null && id.isJsonPrimitive() ? id.getAsString() : null;
+            } catch (JsonParseException | IllegalStateException e) {
+                return null;
+            }
+        }
+        if (trimmed.startsWith("<")) {
+            Matcher title = XML_TITLE.matcher(body);
+            Matcher id = XML_ID.matcher(body);
+            boolean untitled = title.find() && (title.group(1) == null || title.group(1).isEmpty());
+            return untitled && id.find() ? id.group(1) : null;
+        }
+        return null;
+    }
+
+    private String hideOtherNamespaces(String body) {
+        String trimmed = body.trim();
+        if (trimmed.startsWith("{")) {
+            return hideInJson(body);
+        }
+        if (trimmed.startsWith("<")) {
+            return hideInXml(body);
+        }
+        return body;
+    }
+
+    // Drops the objects of other namespaces from the lists in a JSON object, entries that are not objects (errors) are kept
+    private String hideInJson(String body) {
+        JsonObject object;
+        try {
+            object = JsonParser.parseString(body).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            return body;
+        }
+        boolean hidden = false;
+        for (String key : object.keySet()) {
+            if (!object.get(key).isJsonArray()) {
+                continue;
+            }
+            JsonArray visible = new JsonArray();
+            for (JsonElement element : object.getAsJsonArray(key)) {
+                if (isOwn(element)) {
+                    visible.add(element);
+                } else {
+                    hidden = true;
+                }
+            }
+            object.add(key, visible);
+        }
+        return hidden ? GSON.toJson(object) : body;
+    }
+
+    private boolean isOwn(JsonElement element) {
+        if (!element.isJsonObject()) {
+            return true;
+        }
+        JsonElement title = element.getAsJsonObject().get("title");
+        return owns(title != null && title.isJsonPrimitive() ? title.getAsString() : null);
+    }
+
+    // Drops the elements of other namespaces from an XML list
+    private String hideInXml(String body) {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new InputSource(new StringReader(body)));
+            boolean hidden = false;
+            Node child = document.getDocumentElement().getFirstChild();
+            while (child != null) {
+                Node next = child.getNextSibling();
+                if (child instanceof Element && !isOwn((Element) child)) {
+                    child.getParentNode().removeChild(child);
+                    hidden = true;
+                }
+                child = next;
+            }
+            if (!hidden) {
+                return body;
+            }
+            StringWriter xml = new StringWriter();
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, body.startsWith("<?xml") ? "no" : "yes");
+            transformer.transform(new DOMSource(document), new StreamResult(xml));
+            return xml.toString();
+        } catch (Exception e) {
+            return body;
+        }
+    }
+
+    private boolean isOwn(Element element) {
+        boolean object = false;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && ((Element) child).getTagName().equals("title")) {
+                return owns(child.getTextContent());
+            }
+            object |= child instanceof Element;
+        }
+        // Elements holding only text, such as error messages, are kept
+        return !object;
+    }
+}
@@ -6,26 +6,40 @@ import java.util.Map;
 
 /**
  * ScenarioContext manages state and data sharing between Cucumber steps.
+ * One is created for every scenario and a scenario runs on a single thread, also when scenarios run in parallel,
+ * so the context belongs to that thread and needs no locking. Using it from any other thread fails.
  */
 public class ScenarioContext {
 
+    private final Thread owner = Thread.currentThread();
     private Response lastResponse;
     // Map to store IDs and other dynamic data (e.g., "todo_id", "project_id")
     private final Map<String, String> dataStore = new HashMap<>();
 
     public Response getLastResponse() {
+        checkThread();
         return lastResponse;
     }
 
     public void setLastResponse(Response response) {
+        checkThread();
         this.lastResponse = response;
     }
 
     public void storeId(String key, String id) {
+        checkThread();
         dataStore.put(key, id);
     }
 
     public String retrieveId(String key) {
+        checkThread();
         return dataStore.get(key);
     }
+
+    private void checkThread() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("The scenario context of " + owner.getName() + " was used from "
+                    + Thread.currentThread().getName());
+        }
+    }
 }
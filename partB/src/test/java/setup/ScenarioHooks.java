@@ -1,6 +1,8 @@
 package setup;
 
 import api.Api;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
 import io.cucumber.java.en.Given;
 import io.restassured.RestAssured;
 import io.restassured.response.Response;
@@ -37,4 +39,19 @@ public class ScenarioHooks {
         // This method deletes ALL existing todo items to ensure a clean slate.
         api.deleteAllData();
     }
+
+    // ==============================================================================
+    // Scenario Cleanup
+    // Runs after SystemHooks has handed out the server and before it stops or resets it: hooks with a higher order
+    // run first after a scenario and last before it
+    // ==============================================================================
+    @Before(order = 20000)
+    public void remember_what_the_server_holds() {
+        api.recordCleanupBaseline();
+    }
+
+    @After(order = 20000)
+    public void delete_the_objects_of_the_scenario() {
+        api.deleteScenarioData();
+    }
 }
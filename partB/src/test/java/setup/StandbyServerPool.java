@@ -0,0 +1,109 @@
+package setup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import server.ServerLaunchProfile;
+import server.ServerLauncher;
+import server.ServerLogDrainer;
+
+// Starts the next scenario's server while the current one runs, so a scenario boundary only swaps ports.
+// Every take() starts a replacement, so parallel scenarios end up with a standby per thread
+public class StandbyServerPool {
+    public static final String STANDBY_PROPERTY = "server.standby";
+
+    private final String pathToServerJar;
+    // As many starting servers at once as there are threads taking them
+    private final ExecutorService starter = Executors.newCachedThreadPool(daemon("standby-server-starter"));
+    private final ExecutorService reaper = Executors.newSingleThreadExecutor(daemon("standby-server-reaper"));
+
+    private final Deque<Future<ServerLauncher.RunningServer>> standbys = new ArrayDeque<>();
+
+    public StandbyServerPool(String pathToServerJar) {
+        this.pathToServerJar = pathToServerJar;
+    }
+
+    // On unless -Dserver.standby=false
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(STANDBY_PROPERTY, "true"));
+    }
+
+    // Hands out the oldest standby, waiting for it if needed, and starts another in its place
+    public ServerLauncher.RunningServer take() throws Exception {
+        Future<ServerLauncher.RunningServer> taken;
+        synchronized (this) {
+            taken = standbys.isEmpty() ? startNext() : standbys.poll();
+            standbys.add(startNext());
+        }
+        // Waited for outside the lock, other threads can take the standbys that are already up meanwhile
+        try {
+            return taken.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    // Stops a server in the background, without waiting for it to exit
+    public synchronized void discard(ServerLauncher.RunningServer server) {
+        if (reaper.isShutdown()) {
+            // Already shutting down, e.g. from another shutdown hook, so there is no background left to use
+            try {
+                stop(server);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        reaper.submit(() -> stop(server));
+    }
+
+    // For the end of the run: stops the standbys and waits for every server to be gone
+    public synchronized void shutdown() {
+        // Waited for rather than cancelled, a server that is already starting would be left running
+        for (Future<ServerLauncher.RunningServer> standby; (standby = standbys.poll()) != null; ) {
+            try {
+                discard(standby.get());
+            } catch (Exception e) {
+                // It failed to start, nothing to stop
+            }
+        }
+        starter.shutdown();
+        reaper.shutdown();
+        try {
+            reaper.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Future<ServerLauncher.RunningServer> startNext() {
+        return starter.submit(this::start);
+    }
+
+    private ServerLauncher.RunningServer start() throws Exception {
+        // -Dserver.heap, -Dserver.gc and -Dserver.jvmArgs choose the server's JVM options
+        return ServerLauncher.start(pathToServerJar, ServerLaunchProfile.fromSystemProperties(),
+                ServerLogDrainer.getLogFileFromSystemProperties());
+    }
+
+    private static Void stop(ServerLauncher.RunningServer server) throws InterruptedException {
+        server.stop();
+        return null;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -2,42 +2,128 @@ package setup;
 
 import io.cucumber.java.After;
 import io.cucumber.java.Before;
-import io.restassured.RestAssured;
-import io.restassured.response.Response;
+import io.cucumber.java.Scenario;
 
 import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+
+import server.ServerLaunchProfile;
+import server.ServerLauncher;
+import server.ServerLifecycleManager;
+import server.ServerLogDrainer;
 
 public class SystemHooks {
-    private static final String BASE_URL = "http://localhost:4567";
+    // Where a server started by hand (-DautoStartServer=false) listens, the ones started here get a free port each
+    private static final String DEFAULT_BASE_URL = "http://localhost:4567";
     public static final String PATH_TO_SERVER_JAR =
             Paths.get(System.getProperty("user.dir"), "lib", "runTodoManagerRestAPI-1.5.5.jar").toString();
 
-    private static Process serverProcess;
+    private static StandbyServerPool standbyPool;
+    // Scenarios running in parallel each run on one thread, and every thread talks to a server of its own
+    private static final ThreadLocal<ManagedServer> SERVERS = ThreadLocal.withInitial(ManagedServer::new);
+    // With -Dfixtures.namespace=true, the one server namespaced scenarios share
+    private static ManagedServer sharedServer;
+
+    private ManagedServer server = SERVERS.get();
+    private FixtureNamespace namespace;
+
+    // The thread's own server, kept across scenarios when the lifecycle manager reuses it, or the one namespaced scenarios share
+    private static class ManagedServer implements ServerLifecycleManager.ServerControl {
+        // Started here with -Dserver.standby=false, otherwise taken from the standby pool
+        private ServerLauncher.RunningServer startedServer;
+        private ServerLauncher.RunningServer currentServer;
+        // Where this thread's server listens, it moves between ports with the standby pool
+        private volatile String baseUrl = DEFAULT_BASE_URL;
+        // Ids per collection the server held when it was last known clean, null until then. Forgotten with the server
+        private Map<String, Set<String>> cleanupBaseline;
+        // Whether a Background has emptied the server since it started
+        private boolean cleared;
+
+        @Override
+        public void start() throws Exception {
+            cleanupBaseline = null;
+            cleared = false;
+            if (StandbyServerPool.isEnabled()) {
+                // The standby was started while the previous scenario ran, so usually there is nothing left to wait for
+                long start = System.nanoTime();
+                currentServer = getStandbyPool().take();
+                baseUrl = currentServer.getBaseUrl();
+                System.out.println(String.format("[INFO] Switched to the standby server on port %d after %.1f ms (it started in the background: %s)",
+                        currentServer.getPort(), (System.nanoTime() - start) / 1e6, currentServer.getTimings()));
+                return;
+            }
+            // -Dserver.heap, -Dserver.gc and -Dserver.jvmArgs choose the server's JVM options, -Dserver.log also writes
+            // its output to a file. A server that never answers fails the scenario
+            startedServer = ServerLauncher.start(PATH_TO_SERVER_JAR, ServerLaunchProfile.fromSystemProperties(),
+                    ServerLogDrainer.getLogFileFromSystemProperties());
+            baseUrl = startedServer.getBaseUrl();
+            System.out.println("[INFO] Server started: " + startedServer.getTimings());
+        }
+
+        @Override
+        public void stop() throws Exception {
+            if (currentServer != null) {
+                // Stopped in the background, the next scenario already has its server
+                getStandbyPool().discard(currentServer);
+                currentServer = null;
+                return;
+            }
+            if (startedServer != null) {
+                startedServer.stop();
+                startedServer = null;
+            }
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+    }
+
+    // Where the current scenario's server listens
+    public String getBaseUrl() {
+        return server.getBaseUrl();
+    }
+
+    // Null when the scenario has a server of its own
+    public FixtureNamespace getNamespace() {
+        return namespace;
+    }
+
+    // What the scenario's server held when it was last known clean, null when it is not known yet
+    public Map<String, Set<String>> getCleanupBaseline() {
+        return server.cleanupBaseline;
+    }
+
+    public void setCleanupBaseline(Map<String, Set<String>> baseline) {
+        server.cleanupBaseline = baseline;
+    }
+
+    // Whether the scenario's server was emptied by an earlier Background and cleaned up after ever since
+    public boolean isCleared() {
+        return server.cleared;
+    }
+
+    public void setCleared(boolean cleared) {
+        server.cleared = cleared;
+    }
 
     @Before
-    public void startServer() throws Exception {
+    public void startServer(Scenario scenario) throws Exception {
         // Check if server auto-start is disabled
         String autoStart = System.getProperty("autoStartServer", "true"); // default: true
         if (autoStart.equalsIgnoreCase("false")) {
             System.out.println("[INFO] Skipping automatic server startup (manual mode enabled).");
             return;
         }
-
-        serverProcess = new ProcessBuilder("java", "-jar", PATH_TO_SERVER_JAR).start();
-
-        // Wait for the server to start responding
-        for (int attempt = 0; attempt < 10; attempt++) {
-            try {
-                Thread.sleep(500);
-                Response response = RestAssured.get(BASE_URL + "/todos");
-                if (response.getStatusCode() == 200) {
-                    return;
-                }
-            } catch (Exception e) {
-                System.out.println("Waiting for server to start...");
-                Thread.sleep(1000);
-            }
+        if (FixtureNamespace.isEnabled() && !scenario.getSourceTagNames().contains(FixtureNamespace.OWN_SERVER_TAG)) {
+            server = getSharedServer();
+            namespace = FixtureNamespace.create();
+            return;
         }
+        // A fresh server per scenario, or with -Dserver.reuse=true one server per thread kept for the whole run and reset in between
+        ServerLifecycleManager.getInstance().beforeTest(server);
     }
 
     @After
@@ -47,10 +133,35 @@ public class SystemHooks {
             System.out.println("[INFO] Manual mode active — skipping server shutdown.");
             return;
         }
+        if (namespace != null) {
+            // The shared server outlives the scenario, its objects are deleted by ScenarioHooks
+            return;
+        }
+        ServerLifecycleManager.getInstance().afterTest(server);
+    }
+
+    private static synchronized ManagedServer getSharedServer() throws Exception {
+        if (sharedServer == null) {
+            ManagedServer server = new ManagedServer();
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    server.stop();
+                } catch (Exception e) {
+                    System.err.println("Failed to stop the shared server: " + e.getMessage());
+                }
+            }, "shared-server-shutdown"));
+            sharedServer = server;
+        }
+        return sharedServer;
+    }
 
-        if (serverProcess != null) {
-            serverProcess.destroy();
-            serverProcess.waitFor();
+    private static synchronized StandbyServerPool getStandbyPool() {
+        if (standbyPool == null) {
+            standbyPool = new StandbyServerPool(PATH_TO_SERVER_JAR);
+            StandbyServerPool pool = standbyPool;
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown, "standby-server-shutdown"));
         }
+        return standbyPool;
     }
 }
@@ -13,7 +13,6 @@ import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import io.restassured.RestAssured;
 import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
 import models.Category;
@@ -21,8 +20,6 @@ import setup.ScenarioContext;
 
 public class CategoryStepDefinitions {
 
-    private static final String BASE_URL = "http://localhost:4567";
-
     private final ScenarioContext context;
     private final Api api;
 
@@ -30,9 +27,9 @@ public class CategoryStepDefinitions {
     // class.
     private final Map<String, String> idAliases = new HashMap<>();
 
-    public CategoryStepDefinitions(ScenarioContext context) {
+    public CategoryStepDefinitions(ScenarioContext context, Api api) {
         this.context = context;
-        this.api = new Api();
+        this.api = api;
     }
 
     /* -------------------- Background -------------------- */
@@ -145,8 +142,7 @@ public class CategoryStepDefinitions {
         } catch (Exception ignored) {
         }
 
-        Response r = RestAssured.given()
-                .baseUri(BASE_URL)
+        Response r = api.given()
                 .header("Accept", accept)
                 .get("/categories")
                 .then().extract().response();
@@ -303,7 +299,7 @@ public class CategoryStepDefinitions {
             }
 
             // Fallback: list categories and pick the most recent
-            Response list = RestAssured.given().baseUri(BASE_URL).get("/categories").then().extract().response();
+            Response list = api.given().get("/categories").then().extract().response();
             try {
                 List<Map<String, Object>> cats = null;
                 try {
@@ -1,3 +1,4 @@
+@ownServer
 Feature: Manage todos/categories relationships
 
   Background: The system is running and there is no data stored.
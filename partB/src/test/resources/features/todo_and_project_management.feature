@@ -1,3 +1,4 @@
+@ownServer
 Feature: Manage tasks/tasksof relationships
 
   Background: The system is running and there is no data stored.
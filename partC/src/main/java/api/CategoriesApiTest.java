@@ -1,9 +1,6 @@
 package api;
 
-import java.net.HttpURLConnection;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,9 +9,12 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import general.Api;
+import general.ApiRequest;
+import general.ApiResponse;
+import general.PerformanceMetrics;
+import general.ResponseReader;
 import static general.CommonConstants.CATEGORIES_ENDPOINT;
 import static general.CommonConstants.DELETE_METHOD;
 import static general.CommonConstants.MAX_NUM_OBJECTS_FOR_PERFORMANCE_TESTING;
@@ -30,6 +30,7 @@ public class CategoriesApiTest extends Api {
     /* Helpers */
 
     private void populateTestCategories() {
+        testCategoriesStrings.clear();
         for (int i = 0; i<MAX_NUM_OBJECTS_FOR_PERFORMANCE_TESTING; i++) {
             String title = generateRandomString(1, 50, false);
             String description = generateRandomString(0, 200, true);
@@ -41,14 +42,12 @@ public class CategoriesApiTest extends Api {
         }
     }
 
-    private void createCategory(String categoryJsonBody) throws Exception {
-        HttpURLConnection connection = request(CATEGORIES_ENDPOINT, POST_METHOD, categoryJsonBody);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    private void verifyCreatedCategory(String categoryJsonBody, ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        Category createdCategory = objectMapper.readValue(responseBody, Category.class);
+        Category createdCategory = ResponseReader.read(responseBody, Category.class);
 
         String createdCategoryJsonBody = toJson(createdCategory.toPayloadMap());
 
@@ -56,19 +55,15 @@ public class CategoriesApiTest extends Api {
         assertEquals("Created", responseMessage);
         assertEquals(createdCategoryJsonBody, categoryJsonBody);
 
-        connection.getInputStream().close();
-
-        latestCreatedCategoryId = Integer.parseInt(createdCategory.getId());
+        latestCreatedCategoryId.accumulateAndGet(Integer.parseInt(createdCategory.getId()), Math::max);
     }
 
-    private void changeCategory(String id, String categoryJsonBody) throws Exception {
-        HttpURLConnection connection = requestWithId(CATEGORIES_ENDPOINT, PUT_METHOD, id, categoryJsonBody);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    private void verifyChangedCategory(String id, String categoryJsonBody, ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        Category updatedCategory = objectMapper.readValue(responseBody, Category.class);
+        Category updatedCategory = ResponseReader.read(responseBody, Category.class);
 
         String updatedCategoryJsonBody = toJson(updatedCategory.toPayloadMap());
 
@@ -76,21 +71,16 @@ public class CategoriesApiTest extends Api {
         assertEquals("OK", responseMessage);
         assertEquals(id, updatedCategory.getId());
         assertEquals(updatedCategoryJsonBody, categoryJsonBody);
-
-        connection.getInputStream().close();
     }
 
-    private void deleteCategory(String id) throws Exception {
-        HttpURLConnection connection = requestWithId(CATEGORIES_ENDPOINT, DELETE_METHOD, id, null);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    private void verifyDeletedCategory(ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
 
         assertEquals(200, responseCode);
         assertEquals("OK", responseMessage);
         assertEquals("", responseBody);
-
-        connection.getInputStream().close();
     }
 
 
@@ -104,22 +94,49 @@ public class CategoriesApiTest extends Api {
 
         populateTestCategories();
 
-        // Store <number of objects, <time taken to create all objects, CPU usage, memory usage>>
-        Map<Integer, List<String>> performanceMetrics = new HashMap<>();
+        // Store one row per <number of objects, concurrent clients>: time taken to create all objects, CPU usage, memory usage
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " categories");
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    try {
-                        createCategory(testCategoriesStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to create a random category", e);
-                    }
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " categories and " + clients + " clients");
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, CATEGORIES_ENDPOINT, testCategoriesStrings.get(i)),
+                        (i, response) -> verifyCreatedCategory(testCategoriesStrings.get(i), response));
+
+                performanceMetrics.add(metrics);
+
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
+            }
+        }
+
+        String filePath = getResultsDirectory().resolve("createCategories" + getExecutionModeSuffix() + ".csv").toString();
+        savePerformanceMetricsToCSV(filePath, performanceMetrics);
+
+        System.out.println("\nSaved categories performance tests----------------------\n");
+    }
 
-            performanceMetrics.put(numObjects, metrics);
+
+    // Test POST /categories open-loop: requests arrive at a fixed rate no matter how fast the server answers
+    @Test
+    public void testOpenLoopPostCategoriesJson() throws Exception {
+        System.out.println("\n----------------------Open-loop creating categories performance tests");
+
+        populateTestCategories();
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
+
+        for (double rate : getArrivalRates()) {
+            System.out.println("\n############# Testing with " + rate + " categories per second");
+
+            PerformanceMetrics metrics = measureOpenLoopMetrics(rate,
+                    i -> new ApiRequest(POST_METHOD, CATEGORIES_ENDPOINT, testCategoriesStrings.get(i % testCategoriesStrings.size())),
+                    (i, response) -> verifyCreatedCategory(testCategoriesStrings.get(i % testCategoriesStrings.size()), response));
+            performanceMetrics.add(metrics);
 
             // Sleep for a short duration to allow server to stabilize
             try {
@@ -129,13 +146,12 @@ public class CategoriesApiTest extends Api {
             }
         }
 
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "createCategories.csv").toString();
+        String filePath = getResultsDirectory().resolve("openLoopCreateCategories.csv").toString();
         savePerformanceMetricsToCSV(filePath, performanceMetrics);
 
-        System.out.println("\nSaved categories performance tests----------------------\n");
+        System.out.println("\nSaved open-loop creating categories performance tests----------------------\n");
     }
 
-
     /*   /categories/:id endpoint tests   */
 
     // Test PUT /categories/:id
@@ -146,43 +162,39 @@ public class CategoriesApiTest extends Api {
 
         populateTestCategories();
 
-        // Store <number of objects, <time taken to update all objects, CPU usage, memory usage>>
-        Map<Integer, List<String>> performanceMetrics = new HashMap<>();
+        // Store one row per <number of objects, concurrent clients>: time taken to update all objects, CPU usage, memory usage
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " categories to update");
-
-            // First, create the required number of categories
-            for (int i = 0; i < numObjects; i++) {
-                createCategory(testCategoriesStrings.get(i));
-            }
-
-            // Get fresh random data for updates
-            populateTestCategories();
-
-            // Now, update the created categories and measure performance
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    String currentCategoryId = String.valueOf(latestCreatedCategoryId - numObjects + 1 + i);
-                    try {
-                        changeCategory(currentCategoryId, testCategoriesStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to update category", e);
-                    }
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " categories to update and " + clients + " clients");
+
+                // First, create the required number of categories
+                sendRequests(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, CATEGORIES_ENDPOINT, testCategoriesStrings.get(i)),
+                        (i, response) -> verifyCreatedCategory(testCategoriesStrings.get(i), response));
+
+                // Get fresh random data for updates
+                populateTestCategories();
+
+                // Now, update the created categories and measure performance
+                int startId = latestCreatedCategoryId.get() - numObjects + 1;
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> ApiRequest.withId(PUT_METHOD, CATEGORIES_ENDPOINT, String.valueOf(startId + i), testCategoriesStrings.get(i)),
+                        (i, response) -> verifyChangedCategory(String.valueOf(startId + i), testCategoriesStrings.get(i), response));
+
+                performanceMetrics.add(metrics);
+
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
-
-            performanceMetrics.put(numObjects, metrics);
-
-            // Sleep for a short duration to allow server to stabilize
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
         }
 
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "updateCategories.csv").toString();
+        String filePath = getResultsDirectory().resolve("updateCategories" + getExecutionModeSuffix() + ".csv").toString();
         savePerformanceMetricsToCSV(filePath, performanceMetrics);
 
         System.out.println("\nSaved updating categories performance tests----------------------\n");
@@ -196,40 +208,36 @@ public class CategoriesApiTest extends Api {
 
         populateTestCategories();
 
-        // Store <number of objects, <time taken to delete all objects, CPU usage, memory usage>>
-        Map<Integer, List<String>> performanceMetrics = new HashMap<>();
+        // Store one row per <number of objects, concurrent clients>: time taken to delete all objects, CPU usage, memory usage
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " categories to delete");
-
-            // First, create the required number of categories
-            for (int i = 0; i < numObjects; i++) {
-                createCategory(testCategoriesStrings.get(i));
-            }
-
-            // Now, delete the created categories and measure performance
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    String currentCategoryId = String.valueOf(latestCreatedCategoryId - numObjects + 1 + i);
-                    try {
-                        deleteCategory(currentCategoryId);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to delete category", e);
-                    }
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " categories to delete and " + clients + " clients");
+
+                // First, create the required number of categories
+                sendRequests(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, CATEGORIES_ENDPOINT, testCategoriesStrings.get(i)),
+                        (i, response) -> verifyCreatedCategory(testCategoriesStrings.get(i), response));
+
+                // Now, delete the created categories and measure performance
+                int startId = latestCreatedCategoryId.get() - numObjects + 1;
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> ApiRequest.withId(DELETE_METHOD, CATEGORIES_ENDPOINT, String.valueOf(startId + i), null),
+                        (i, response) -> verifyDeletedCategory(response));
+
+                performanceMetrics.add(metrics);
+
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
-
-            performanceMetrics.put(numObjects, metrics);
-
-            // Sleep for a short duration to allow server to stabilize
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
         }
 
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "deleteCategories.csv").toString();
+        String filePath = getResultsDirectory().resolve("deleteCategories" + getExecutionModeSuffix() + ".csv").toString();
         savePerformanceMetricsToCSV(filePath, performanceMetrics);
 
         System.out.println("\nSaved deleting categories performance tests----------------------\n");
@@ -1,8 +1,5 @@
 package api;
 
-import java.net.HttpURLConnection;
-import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
@@ -11,9 +8,12 @@ import org.junit.*;
 import org.junit.runners.MethodSorters;
 import static org.junit.Assert.*;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import general.Api;
+import general.ApiRequest;
+import general.ApiResponse;
+import general.PerformanceMetrics;
+import general.ResponseReader;
 import models.Project;
 import static general.CommonConstants.*;
 
@@ -25,6 +25,7 @@ public class ProjectsApiTest extends Api {
     private List<String> testProjectsStrings = new ArrayList<>();
 
     private void populateTestProjects() {
+        testProjectsStrings.clear();
         for (int i = 0; i<MAX_NUM_OBJECTS_FOR_PERFORMANCE_TESTING; i++) {
             String title = generateRandomString(1,50,false);
             String description = generateRandomString(0,200,true);
@@ -37,51 +38,42 @@ public class ProjectsApiTest extends Api {
         }
     }
 
-    // Send a project creation request 
-    private void createProject(String projectJsonBody) throws Exception {
-        HttpURLConnection connection = request(PROJECTS_ENDPOINT, POST_METHOD, projectJsonBody);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    // Check the response to a project creation request
+    private void verifyCreatedProject(String projectJsonBody, ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
         assertEquals(201, responseCode);
         assertEquals("Created", responseMessage);
 
-        Project createdProject = new ObjectMapper().readValue(responseBody, Project.class);
+        Project createdProject = ResponseReader.read(responseBody, Project.class);
         // Verify that the created project matches the sent data
         assertTrue(toJson(createdProject.toPayloadMap()).contains(projectJsonBody));
 
-        connection.getInputStream().close();
-
-        latestCreatedProjectId = Integer.parseInt(createdProject.getId());
+        latestCreatedProjectId.accumulateAndGet(Integer.parseInt(createdProject.getId()), Math::max);
     }
 
-    // Send a project change request
-    private void changeProject(String id, String projectJsonBody) throws Exception {
-        HttpURLConnection connection = requestWithId(PROJECTS_ENDPOINT, PUT_METHOD, id, projectJsonBody);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    // Check the response to a project change request
+    private void verifyChangedProject(String projectJsonBody, ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
         assertEquals(200, responseCode);
         assertEquals("OK", responseMessage);   
 
-        Project updatedProject = new ObjectMapper().readValue(responseBody, Project.class);
+        Project updatedProject = ResponseReader.read(responseBody, Project.class);
         // Verify that the updated project matches the sent data
         assertTrue(toJson(updatedProject.toPayloadMap()).contains(projectJsonBody));
-
-        connection.getInputStream().close();
     }
 
-    // Send a project deletion request
-    private void deleteProject(String id) throws Exception {
-        HttpURLConnection connection = requestWithId(PROJECTS_ENDPOINT, DELETE_METHOD, id, null);
-        int responseCode = connection.getResponseCode();
-        String responseMessage = connection.getResponseMessage();
-        String responseBody = readResponse(connection);
+    // Check the response to a project deletion request
+    private void verifyDeletedProject(ApiResponse response) throws Exception {
+        int responseCode = response.getResponseCode();
+        String responseMessage = response.getResponseMessage();
+        String responseBody = readResponse(response);
         assertEquals(200, responseCode);
         assertEquals("OK", responseMessage);
         assertEquals("", responseBody);
-
-        connection.getInputStream().close();
     }
 
     /* Tests */
@@ -90,21 +82,47 @@ public class ProjectsApiTest extends Api {
         System.out.println("\n----------------------Creating projects performance tests");
 
         populateTestProjects();
-        Map<Integer, List<String>> projectsMetrics = new HashMap<>();
+        List<PerformanceMetrics> projectsMetrics = new ArrayList<>();
     
         for (int numProjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numProjects + " projects");
-            
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numProjects; i++) {
-                    try{
-                        createProject(testProjectsStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to create project " + (i + 1) + " of " + numProjects, e);
-                    }
+            for (int clients : getConcurrentClients(numProjects)) {
+                System.out.println("\n############# Testing with " + numProjects + " projects and " + clients + " clients");
+
+                PerformanceMetrics metrics = measurePerformanceMetrics(numProjects, clients,
+                        i -> new ApiRequest(POST_METHOD, PROJECTS_ENDPOINT, testProjectsStrings.get(i)),
+                        (i, response) -> verifyCreatedProject(testProjectsStrings.get(i), response));
+                projectsMetrics.add(metrics);
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
-            projectsMetrics.put(numProjects, metrics);
+            }
+        }
+        String filePath = getResultsDirectory().resolve("createProjects" + getExecutionModeSuffix() + ".csv").toString();
+        savePerformanceMetricsToCSV(filePath, projectsMetrics);
+
+        System.out.println("\nSaved creating projects performance tests----------------------\n");
+
+    }
+
+    // Test POST /projects open-loop: requests arrive at a fixed rate no matter how fast the server answers
+    @Test
+    public void testOpenLoopPostProjectsJson() throws Exception {
+        System.out.println("\n----------------------Open-loop creating projects performance tests");
+
+        populateTestProjects();
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
+
+        for (double rate : getArrivalRates()) {
+            System.out.println("\n############# Testing with " + rate + " projects per second");
+
+            PerformanceMetrics metrics = measureOpenLoopMetrics(rate,
+                    i -> new ApiRequest(POST_METHOD, PROJECTS_ENDPOINT, testProjectsStrings.get(i % testProjectsStrings.size())),
+                    (i, response) -> verifyCreatedProject(testProjectsStrings.get(i % testProjectsStrings.size()), response));
+            performanceMetrics.add(metrics);
+
             // Sleep for a short duration to allow server to stabilize
             try {
                 Thread.sleep(2000);
@@ -112,11 +130,11 @@ public class ProjectsApiTest extends Api {
                 Thread.currentThread().interrupt();
             }
         }
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "createProjects.csv").toString();
-        savePerformanceMetricsToCSV(filePath, projectsMetrics);
 
-        System.out.println("\nSaved creating projects performance tests----------------------\n");
+        String filePath = getResultsDirectory().resolve("openLoopCreateProjects.csv").toString();
+        savePerformanceMetricsToCSV(filePath, performanceMetrics);
 
+        System.out.println("\nSaved open-loop creating projects performance tests----------------------\n");
     }
 
     // Test PUT /projects/:id
@@ -124,35 +142,31 @@ public class ProjectsApiTest extends Api {
     public void testPutProjectsIdJson() throws Exception {
         System.out.println("\n----------------------Updating projects performance tests");
         populateTestProjects();
-        Map<Integer, List<String>> projectsMetrics = new HashMap<>();
+        List<PerformanceMetrics> projectsMetrics = new ArrayList<>();
         for (int numProjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numProjects + " projects to update");
-            
-            // First, create the projects to be updated
-            for (int i = 0; i < numProjects; i++) {
-                createProject(testProjectsStrings.get(i));
-            }
-            populateTestProjects(); // Refresh test projects for update data
-
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numProjects; i++) {
-                    String currentId = String.valueOf(latestCreatedProjectId - numProjects + 1 + i);
-                    try{
-                        changeProject(currentId, testProjectsStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to update project " + (i + 1) + " of " + numProjects, e);
-                    }
+            for (int clients : getConcurrentClients(numProjects)) {
+                System.out.println("\n############# Testing with " + numProjects + " projects to update and " + clients + " clients");
+
+                // First, create the projects to be updated
+                sendRequests(numProjects, clients,
+                        i -> new ApiRequest(POST_METHOD, PROJECTS_ENDPOINT, testProjectsStrings.get(i)),
+                        (i, response) -> verifyCreatedProject(testProjectsStrings.get(i), response));
+                populateTestProjects(); // Refresh test projects for update data
+
+                int startId = latestCreatedProjectId.get() - numProjects + 1;
+                PerformanceMetrics metrics = measurePerformanceMetrics(numProjects, clients,
+                        i -> ApiRequest.withId(PUT_METHOD, PROJECTS_ENDPOINT, String.valueOf(startId + i), testProjectsStrings.get(i)),
+                        (i, response) -> verifyChangedProject(testProjectsStrings.get(i), response));
+                projectsMetrics.add(metrics);
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
-            projectsMetrics.put(numProjects, metrics);
-            // Sleep for a short duration to allow server to stabilize
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
         }
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "updateProjects.csv").toString();
+        String filePath = getResultsDirectory().resolve("updateProjects" + getExecutionModeSuffix() + ".csv").toString();
         savePerformanceMetricsToCSV(filePath, projectsMetrics);
         System.out.println("\nSaved updating projects performance tests----------------------\n");
     }
@@ -163,35 +177,31 @@ public class ProjectsApiTest extends Api {
         System.out.println("\n----------------------Deleting projects performance tests");
         populateTestProjects();
 
-        Map<Integer, List<String>> projectsMetrics = new HashMap<>();
+        List<PerformanceMetrics> projectsMetrics = new ArrayList<>();
         for (int numProjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numProjects + " projects to delete");
-            
-            // First, create the projects to be deleted
-            for (int i = 0; i < numProjects; i++) {
-                createProject(testProjectsStrings.get(i));
-            }
-
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numProjects; i++) {
-                    String currentId = String.valueOf(latestCreatedProjectId - numProjects + 1 + i);
-                    try{
-                        deleteProject(currentId);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to delete project " + (i + 1) + " of " + numProjects, e);
-                    }
+            for (int clients : getConcurrentClients(numProjects)) {
+                System.out.println("\n############# Testing with " + numProjects + " projects to delete and " + clients + " clients");
+
+                // First, create the projects to be deleted
+                sendRequests(numProjects, clients,
+                        i -> new ApiRequest(POST_METHOD, PROJECTS_ENDPOINT, testProjectsStrings.get(i)),
+                        (i, response) -> verifyCreatedProject(testProjectsStrings.get(i), response));
+
+                int startId = latestCreatedProjectId.get() - numProjects + 1;
+                PerformanceMetrics metrics = measurePerformanceMetrics(numProjects, clients,
+                        i -> ApiRequest.withId(DELETE_METHOD, PROJECTS_ENDPOINT, String.valueOf(startId + i), null),
+                        (i, response) -> verifyDeletedProject(response));
+                projectsMetrics.add(metrics);
+                // Sleep for a short duration to allow server to stabilize
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            });
-            projectsMetrics.put(numProjects, metrics);
-            // Sleep for a short duration to allow server to stabilize
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
         }
-        String filePath = Paths.get(System.getProperty("user.dir"), "results", "deleteProjects.csv").toString();
+        String filePath = getResultsDirectory().resolve("deleteProjects" + getExecutionModeSuffix() + ".csv").toString();
         savePerformanceMetricsToCSV(filePath, projectsMetrics);
         System.out.println("\nSaved deleting projects performance tests----------------------\n");
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,5 @@
 package api;
 
-import java.net.HttpURLConnection;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -13,16 +11,17 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import general.Api;
+import general.ApiRequest;
+import general.ApiResponse;
+import general.PerformanceMetrics;
+import general.ResponseReader;
 import static general.CommonConstants.DELETE_METHOD;
 import static general.CommonConstants.MAX_NUM_OBJECTS_FOR_PERFORMANCE_TESTING;
 import static general.CommonConstants.NUM_OBJECTS_FOR_PERFORMANCE_TESTING;
 import static general.CommonConstants.POST_METHOD;
 import static general.CommonConstants.PUT_METHOD;
 import static general.CommonConstants.TODOS_ENDPOINT;
-import models.Todo;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class TodosApiTest extends Api {
@@ -42,45 +41,34 @@ public class TodosApiTest extends Api {
         }
     }
 
-    private void createTodo(String todoJsonBody) throws Exception {
-        HttpURLConnection conn = request(TODOS_ENDPOINT, POST_METHOD, todoJsonBody);
-        int code = conn.getResponseCode();
-        String body = readResponse(conn);
+    private void verifyCreatedTodo(ApiResponse response) throws Exception {
+        int code = response.getResponseCode();
+        String body = readResponse(response);
 
         assertEquals(201, code);
 
-        Todo created = new ObjectMapper().readValue(body, Todo.class);
-
-        // Minimal checks only (do NOT compare raw JSON)
-        assertNotNull(created.getId());
-        assertNotNull(created.getTitle());
-
-        conn.getInputStream().close();
-        latestCreatedTodoId = Integer.parseInt(created.getId());
+        // Minimal checks only (do NOT compare raw JSON), read without binding a Todo
+        Map<String, String> created = ResponseReader.readFields(body, "id", "title");
+        assertNotNull(created.get("id"));
+        assertNotNull(created.get("title"));
+        latestCreatedTodoId.accumulateAndGet(Integer.parseInt(created.get("id")), Math::max);
     }
 
-    private void changeTodo(String id, String todoJsonBody) throws Exception {
-        HttpURLConnection conn = requestWithId(TODOS_ENDPOINT, PUT_METHOD, id, todoJsonBody);
-        int code = conn.getResponseCode();
-        String body = readResponse(conn);
+    private void verifyChangedTodo(String id, ApiResponse response) throws Exception {
+        int code = response.getResponseCode();
+        String body = readResponse(response);
 
         assertEquals(200, code);
 
-        Todo updated = new ObjectMapper().readValue(body, Todo.class);
-        assertEquals(id, updated.getId());
-
-        conn.getInputStream().close();
+        assertEquals(id, ResponseReader.readId(body));
     }
 
-    private void deleteTodo(String id) throws Exception {
-        HttpURLConnection conn = requestWithId(TODOS_ENDPOINT, DELETE_METHOD, id, null);
-        int code = conn.getResponseCode();
-        String body = readResponse(conn);
+    private void verifyDeletedTodo(ApiResponse response) throws Exception {
+        int code = response.getResponseCode();
+        String body = readResponse(response);
 
         assertEquals(200, code);
         assertEquals("", body);
-
-        conn.getInputStream().close();
     }
 
     /* Tests */
@@ -90,75 +78,92 @@ public class TodosApiTest extends Api {
         System.out.println("\n----------------------Creating todos performance tests");
 
         populateTestTodos();
-        Map<Integer, List<String>> metricsMap = new HashMap<>();
+        List<PerformanceMetrics> metricsList = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " todos");
-
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    try {
-                        createTodo(testTodosStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to create todo " + (i + 1)
-                                + " of " + numObjects, e);
-                    }
-                }
-            });
-
-            metricsMap.put(numObjects, metrics);
-
-            try { Thread.sleep(2000); }
-            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " todos and " + clients + " clients");
+
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT, testTodosStrings.get(i)),
+                        (i, response) -> verifyCreatedTodo(response));
+
+                metricsList.add(metrics);
+
+                try { Thread.sleep(2000); }
+                catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
         }
 
-        String path = Paths.get(System.getProperty("user.dir"),
-                "results", "createTodos.csv").toString();
-        savePerformanceMetricsToCSV(path, metricsMap);
+        String path = getResultsDirectory().resolve("createTodos" + getExecutionModeSuffix() + ".csv").toString();
+        savePerformanceMetricsToCSV(path, metricsList);
 
         System.out.println("\nSaved creating todos performance tests----------------------\n");
     }
 
+    // Test POST /todos open-loop: requests arrive at a fixed rate no matter how fast the server answers
+    @Test
+    public void testOpenLoopPostTodosJson() throws Exception {
+        System.out.println("\n----------------------Open-loop creating todos performance tests");
+
+        populateTestTodos();
+        List<PerformanceMetrics> performanceMetrics = new ArrayList<>();
+
+        for (double rate : getArrivalRates()) {
+            System.out.println("\n############# Testing with " + rate + " todos per second");
+
+            PerformanceMetrics metrics = measureOpenLoopMetrics(rate,
+                    i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT, testTodosStrings.get(i % testTodosStrings.size())),
+                    (i, response) -> verifyCreatedTodo(response));
+            performanceMetrics.add(metrics);
+
+            // Sleep for a short duration to allow server to stabilize
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String filePath = getResultsDirectory().resolve("openLoopCreateTodos.csv").toString();
+        savePerformanceMetricsToCSV(filePath, performanceMetrics);
+
+        System.out.println("\nSaved open-loop creating todos performance tests----------------------\n");
+    }
+
     @Test
     public void testPutTodosIdJson() throws Exception {
         System.out.println("\n----------------------Updating todos performance tests");
 
         populateTestTodos();
-        Map<Integer, List<String>> metricsMap = new HashMap<>();
+        List<PerformanceMetrics> metricsList = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " todos to update");
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " todos to update and " + clients + " clients");
 
-            // Create todos
-            for (int i = 0; i < numObjects; i++) {
-                createTodo(testTodosStrings.get(i));
-            }
+                // Create todos
+                sendRequests(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT, testTodosStrings.get(i)),
+                        (i, response) -> verifyCreatedTodo(response));
 
-            int startId = latestCreatedTodoId - numObjects + 1;
+                int startId = latestCreatedTodoId.get() - numObjects + 1;
 
-            populateTestTodos(); // get new data for updating
+                populateTestTodos(); // get new data for updating
 
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    String id = String.valueOf(startId + i);
-                    try {
-                        changeTodo(id, testTodosStrings.get(i));
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to update todo " + (i + 1)
-                                + " of " + numObjects, e);
-                    }
-                }
-            });
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> ApiRequest.withId(PUT_METHOD, TODOS_ENDPOINT, String.valueOf(startId + i), testTodosStrings.get(i)),
+                        (i, response) -> verifyChangedTodo(String.valueOf(startId + i), response));
 
-            metricsMap.put(numObjects, metrics);
+                metricsList.add(metrics);
 
-            try { Thread.sleep(2000); }
-            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                try { Thread.sleep(2000); }
+                catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
         }
 
-        String path = Paths.get(System.getProperty("user.dir"),
-                "results", "updateTodos.csv").toString();
-        savePerformanceMetricsToCSV(path, metricsMap);
+        String path = getResultsDirectory().resolve("updateTodos" + getExecutionModeSuffix() + ".csv").toString();
+        savePerformanceMetricsToCSV(path, metricsList);
 
         System.out.println("\nSaved updating todos performance tests----------------------\n");
     }
@@ -168,39 +173,32 @@ public class TodosApiTest extends Api {
         System.out.println("\n----------------------Deleting todos performance tests");
 
         populateTestTodos();
-        Map<Integer, List<String>> metricsMap = new HashMap<>();
+        List<PerformanceMetrics> metricsList = new ArrayList<>();
 
         for (int numObjects : NUM_OBJECTS_FOR_PERFORMANCE_TESTING) {
-            System.out.println("\n############# Testing with " + numObjects + " todos to delete");
+            for (int clients : getConcurrentClients(numObjects)) {
+                System.out.println("\n############# Testing with " + numObjects + " todos to delete and " + clients + " clients");
 
-            // Create todos
-            for (int i = 0; i < numObjects; i++) {
-                createTodo(testTodosStrings.get(i));
-            }
+                // Create todos
+                sendRequests(numObjects, clients,
+                        i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT, testTodosStrings.get(i)),
+                        (i, response) -> verifyCreatedTodo(response));
 
-            int startId = latestCreatedTodoId - numObjects + 1;
+                int startId = latestCreatedTodoId.get() - numObjects + 1;
 
-            List<String> metrics = measurePerformanceMetrics(() -> {
-                for (int i = 0; i < numObjects; i++) {
-                    String id = String.valueOf(startId + i);
-                    try {
-                        deleteTodo(id);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to delete todo " + (i + 1)
-                                + " of " + numObjects, e);
-                    }
-                }
-            });
+                PerformanceMetrics metrics = measurePerformanceMetrics(numObjects, clients,
+                        i -> ApiRequest.withId(DELETE_METHOD, TODOS_ENDPOINT, String.valueOf(startId + i), null),
+                        (i, response) -> verifyDeletedTodo(response));
 
-            metricsMap.put(numObjects, metrics);
+                metricsList.add(metrics);
 
-            try { Thread.sleep(2000); }
-            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+                try { Thread.sleep(2000); }
+                catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
         }
 
-        String path = Paths.get(System.getProperty("user.dir"),
-                "results", "deleteTodos.csv").toString();
-        savePerformanceMetricsToCSV(path, metricsMap);
+        String path = getResultsDirectory().resolve("deleteTodos" + getExecutionModeSuffix() + ".csv").toString();
+        savePerformanceMetricsToCSV(path, metricsList);
 
         System.out.println("\nSaved deleting todos performance tests----------------------\n");
     }
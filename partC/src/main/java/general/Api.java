@@ -1,31 +1,108 @@
 package general;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
 
 import com.google.gson.Gson;
 
-import static general.CommonConstants.BASE_URL;
-import static general.CommonConstants.JSON_FORMAT;
+import server.ServerLauncher;
+import server.ServerLaunchProfile;
+import server.ServerLifecycleManager;
+import server.ServerLogDrainer;
+import server.ServerReadiness;
+
+import static general.CommonConstants.ARRIVAL_DISTRIBUTION_PROPERTY;
+import static general.CommonConstants.ARRIVAL_DURATION_PROPERTY;
+import static general.CommonConstants.ARRIVAL_RATES_FOR_PERFORMANCE_TESTING;
+import static general.CommonConstants.ARRIVAL_RATES_PROPERTY;
+import static general.CommonConstants.ARRIVAL_SEED_PROPERTY;
+import static general.CommonConstants.ASYNC_WINDOW_PROPERTY;
+import static general.CommonConstants.BANNER_COLUMN;
+import static general.CommonConstants.BASE_URL_FORMAT;
+import static general.CommonConstants.CLIENTS_COLUMN;
+import static general.CommonConstants.CLIENTS_PROPERTY;
+import static general.CommonConstants.CONCURRENT_CLIENTS_FOR_PERFORMANCE_TESTING;
+import static general.CommonConstants.CPU_USAGE_COLUMN;
+import static general.CommonConstants.CPU_USAGE_P50_COLUMN;
+import static general.CommonConstants.CPU_USAGE_P99_COLUMN;
+import static general.CommonConstants.DEFAULT_ARRIVAL_DURATION_SECONDS;
+import static general.CommonConstants.DEFAULT_ARRIVAL_SEED;
+import static general.CommonConstants.FIRST_OK_COLUMN;
+import static general.CommonConstants.HISTOGRAMS_DIRECTORY;
+import static general.CommonConstants.HISTOGRAM_FILE_EXTENSION;
+import static general.CommonConstants.LAUNCH_PROFILE_COLUMN;
+import static general.CommonConstants.MEMORY_USAGE_COLUMN;
+import static general.CommonConstants.MEMORY_USAGE_P1_COLUMN;
+import static general.CommonConstants.NUM_OBJECTS_COLUMN;
+import static general.CommonConstants.PEAK_CPU_USAGE_COLUMN;
+import static general.CommonConstants.PORT_OPEN_COLUMN;
+import static general.CommonConstants.RESOURCE_SAMPLES_COLUMN;
+import static general.CommonConstants.STARTED_AT_COLUMN;
+import static general.CommonConstants.STARTUP_CSV_FILE;
+import static general.CommonConstants.TEST_CLASS_COLUMN;
+import static general.CommonConstants.THROUGHPUT_COLUMN;
+import static general.CommonConstants.TIME_TAKEN_COLUMN;
 import static general.CommonConstants.PATH_TO_SERVER_JAR;
+import static general.CommonConstants.PROFILES_DIRECTORY;
+import static general.CommonConstants.RESULTS_DIR_PROPERTY;
 
 public abstract class Api {
-    private static Process serverProcess;
+    // Each server gets a port of its own, so parallel forks can each run one
+    private static ServerLauncher.RunningServer server;
+    // The last server that was stopped, its last lines stay readable after it is gone
+    private static ServerLauncher.RunningServer stoppedServer;
+    private static ServerReadiness.StartupTimings lastStartupTimings;
+    private static String baseUrl;
+    private final ServerLifecycleManager.ServerControl serverControl = new ServerLifecycleManager.ServerControl() {
+        @Override
+        public void start() throws Exception {
+            startServer();
+        }
+
+        @Override
+        public void stop() throws Exception {
+            stopServer();
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+    };
+    private static Transport transport;
     private static final Gson GSON = new Gson();
-    protected int latestCreatedCategoryId;
-    protected int latestCreatedTodoId;
-    protected int latestCreatedProjectId;
+    // Highest id created so far, updated from sender threads when requests are pipelined
+    protected final AtomicInteger latestCreatedCategoryId = new AtomicInteger();
+    protected final AtomicInteger latestCreatedTodoId = new AtomicInteger();
+    protected final AtomicInteger latestCreatedProjectId = new AtomicInteger();
+
+    // Builds the request to send for the index-th object of a batch
+    public interface RequestFactory {
+        ApiRequest create(int index);
+    }
+
+    // Asserts on the response to the index-th request, may run on a sender thread when requests are pipelined
+    public interface ResponseCheck {
+        void verify(int index, ApiResponse response) throws Exception;
+    }
 
 
     public Api() {}
@@ -59,132 +136,394 @@ public abstract class Api {
         return GSON.toJson(payloadMap);
     }
 
-    public static HttpURLConnection request(String endpoint, String method, String body) throws Exception {
-        URL url = new URL(BASE_URL + endpoint);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-        connection.setRequestMethod(method);
-        connection.setRequestProperty("Accept", JSON_FORMAT);
-        connection.setRequestProperty("Content-Type", JSON_FORMAT);
-        connection.setDoOutput(true);
-        if (body != null && !body.isEmpty()) {
-            connection.setDoInput(true);
-            connection.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
-        }
-
-        return connection;
+    public static ApiResponse request(String endpoint, String method, String body) throws Exception {
+        return transport.send(method, endpoint, body);
     }
 
-    public static HttpURLConnection requestWithId(String endpoint, String method, String id, String body) throws Exception {
+    public static ApiResponse requestWithId(String endpoint, String method, String id, String body) throws Exception {
         String newEndpoint = endpoint + "/" + id;
 
         return request(newEndpoint, method, body);
     }
 
-    public static String readResponse(HttpURLConnection connection) throws Exception {
-        StringBuilder response = new StringBuilder();
-        BufferedReader reader;
-
-        if (connection.getErrorStream() != null) {
-            reader = new BufferedReader(new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8));
-        }
-        else {
-            reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
-        }
+    public static String readResponse(ApiResponse response) {
+        return response.getBody();
+    }
 
-        String line;
-        while ((line = reader.readLine()) != null) {
-            response.append(line);
+    // For workloads outside the JUnit tests, which check the status code and nothing else
+    protected static void expectStatus(int expected, ApiResponse response) {
+        if (response.getResponseCode() != expected) {
+            throw new AssertionError("Expected " + expected + " but got " + response.getResponseCode() + ": " + response.getBody());
         }
+    }
 
-        return response.toString();
+    public static Transport getTransport() {
+        return transport;
     }
 
 
     /* JUNIT */
 
+    // A fresh server per test, or with -Dserver.reuse=true one server kept for the whole run and reset in between
     @Before
-    public void startServer() throws Exception {
-        serverProcess = new ProcessBuilder("java", "-jar", PATH_TO_SERVER_JAR).start();
+    public void acquireServer() throws Exception {
+        ServerLifecycleManager.getInstance().beforeTest(serverControl);
+    }
 
-        String endpointToTestConnection = BASE_URL + "docs";
-        for (int attempt = 0; attempt < 10; attempt++) {
-            try {
-                HttpURLConnection connection = (HttpURLConnection) new URL(endpointToTestConnection).openConnection();
-                Thread.sleep(500);
-                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                    connection.disconnect();
-                    System.out.println("=======================Server is up and running.");
-                    break;
-                }
-            } catch (Exception e) {
-                System.out.println("Waiting for server to start...");
-                Thread.sleep(1000);
-            }
+    @After
+    public void releaseServer() throws Exception {
+        ServerLifecycleManager.getInstance().afterTest(serverControl);
+    }
+
+    // Always launches a new server, for runs that need one of their own such as the startup benchmarks
+    public void startServer() throws Exception {
+        ServerLaunchProfile profile = getServerLaunchProfile();
+        if (!profile.isDefault()) {
+            System.out.println("Starting server with launch profile " + profile);
         }
+        // -Dserver.cdsArchive naming an archive that does not exist yet has it trained first
+        CdsArchiveTrainer.ensureArchive(profile);
+        File serverLogFile = getServerLogFile();
+        // @After is skipped when @Before fails, so a server that never answers is stopped by the launcher
+        server = ServerLauncher.start(PATH_TO_SERVER_JAR, profile, serverLogFile == null ? null : serverLogFile.toPath());
+        baseUrl = String.format(BASE_URL_FORMAT, server.getPort());
+        lastStartupTimings = server.getTimings();
+        System.out.println("=======================Server is up and running: " + lastStartupTimings + ".");
+        recordStartupTimings(profile, server.getSpawnEpochMillis(), lastStartupTimings);
+
+        // Opened per server so no pooled connection outlives the server it was made to
+        transport = Transport.fromSystemProperties(baseUrl);
+        ServerLifecycleManager manager = ServerLifecycleManager.getInstance();
+        if (manager.isReuseEnabled()) {
+            transport = new CreationReportingTransport(transport, manager, baseUrl);
+        }
+        System.out.println("Using " + transport.getName() + " transport.");
+    }
+
+    // JVM options for the server, from the -Dserver.* properties unless a subclass chooses them itself
+    protected ServerLaunchProfile getServerLaunchProfile() {
+        return ServerLaunchProfile.fromSystemProperties();
+    }
+
+    // File the server's stdout and stderr are also written to, -Dserver.log by default, null keeps them in memory only
+    protected File getServerLogFile() {
+        Path logFile = ServerLogDrainer.getLogFileFromSystemProperties();
+        return logFile == null ? null : logFile.toFile();
+    }
+
+    // The last lines the running (or last stopped) server printed
+    protected static ServerLogDrainer getServerLog() {
+        ServerLauncher.RunningServer latest = server != null ? server : stoppedServer;
+        return latest == null ? null : latest.getLog();
+    }
+
+    // How long the running (or last started) server took to come up
+    protected static ServerReadiness.StartupTimings getLastStartupTimings() {
+        return lastStartupTimings;
+    }
+
+    // Appends a row to serverStartup.csv in the results directory, so startup cost can be compared across runs
+    private void recordStartupTimings(ServerLaunchProfile profile, long spawnEpochMillis, ServerReadiness.StartupTimings timings) {
+        PerformanceMetrics row = new PerformanceMetrics()
+                .put(STARTED_AT_COLUMN, Instant.ofEpochMilli(spawnEpochMillis))
+                .put(TEST_CLASS_COLUMN, getClass().getSimpleName())
+                .put(LAUNCH_PROFILE_COLUMN, profile.getName())
+                .put(PORT_OPEN_COLUMN, String.format("%.1f", timings.getPortOpenMillis()))
+                .put(BANNER_COLUMN, timings.getBannerMillis() < 0 ? "N/A" : String.format("%.1f", timings.getBannerMillis()))
+                .put(FIRST_OK_COLUMN, String.format("%.1f", timings.getFirstOkMillis()));
+        appendPerformanceMetricsToCSV(getResultsDirectory().resolve(STARTUP_CSV_FILE).toString(), row);
+    }
+
+    // The base URL of the running (or last started) server, ending in a slash
+    protected static String getBaseUrl() {
+        return baseUrl;
+    }
+
+    protected static boolean isServerAlive() {
+        return server != null && server.isAlive();
     }
 
-    @After
     public void stopServer() throws Exception {
-        if (serverProcess != null) {
-            serverProcess.destroy();
-            serverProcess.waitFor();
-            System.out.println("Server stopped.=======================\n");
+        if (transport != null) {
+            transport.close();
+            transport = null;
+        }
+        if (server == null) {
+            return;
         }
+        server.stop();
+        stoppedServer = server;
+        server = null;
+        System.out.println("Server stopped.=======================\n");
     }
 
 
     /* PERFORMANCE */
 
-    // To measure performance metrics
-    public List<String> measurePerformanceMetrics(Runnable operation) {
-        ResourceMonitor resourceMonitor = new ResourceMonitor();
-        Thread monitorThread = new Thread(resourceMonitor);
-        monitorThread.start();
+    // In-flight window from -Dasync.window=N, 0 (the default) sends one request at a time
+    public static int getAsyncWindow() {
+        return Integer.getInteger(ASYNC_WINDOW_PROPERTY, 0);
+    }
 
-        // Wait briefly for the monitor to initialize and capture baseline
+    // Where result files go: results/ (or -Dresults.dir), under profiles/<name>/ when the server runs with a launch profile
+    public static Path getResultsDirectory() {
+        Path directory = Paths.get(System.getProperty(RESULTS_DIR_PROPERTY, Paths.get(System.getProperty("user.dir"), "results").toString()));
+        ServerLaunchProfile profile = ServerLaunchProfile.fromSystemProperties();
+        if (!profile.isDefault()) {
+            directory = directory.resolve(PROFILES_DIRECTORY).resolve(profile.getName());
+        }
         try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create results directory " + directory, e);
+        }
+        return directory;
+    }
+
+    // Suffix added to result file names so pipelined runs do not overwrite the sequential ones
+    public static String getExecutionModeSuffix() {
+        int window = getAsyncWindow();
+        return window > 0 ? "_pipelined" + window : "";
+    }
+
+    // Number of concurrent clients to sweep, from -Dclients=1,4,16 or every level up to 256 by default
+    public static int[] getConcurrentClients() {
+        String clients = System.getProperty(CLIENTS_PROPERTY);
+        if (clients == null || clients.isBlank()) {
+            return CONCURRENT_CLIENTS_FOR_PERFORMANCE_TESTING;
+        }
+        return Arrays.stream(clients.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    // Client counts worth running for a batch, more clients than objects would leave some of them idle
+    public static int[] getConcurrentClients(int numObjects) {
+        return Arrays.stream(getConcurrentClients()).filter(clients -> clients <= numObjects).toArray();
+    }
+
+    // Send numObjects requests outside any measurement, e.g. to create the objects a PUT or DELETE test needs
+    public void sendRequests(int numObjects, int clients, RequestFactory requestFactory, ResponseCheck responseCheck) {
+        int window = getAsyncWindow();
+        if (window <= 0) {
+            runClients(numObjects, clients, requestFactory, responseCheck, null, null);
+            return;
+        }
+        try (AsyncRequestEngine engine = new AsyncRequestEngine(transport, window)) {
+            runClients(numObjects, clients, requestFactory, responseCheck, engine, null);
+            engine.awaitCompletion();
+        }
+    }
+
+    // Send numObjects requests from the given number of clients inside the measurement window,
+    // each client sending sequentially, or through a shared pipeline when -Dasync.window is set.
+    // Every request's latency goes into a histogram that is summarised in the row and saved with the CSV
+    public PerformanceMetrics measurePerformanceMetrics(int numObjects, int clients, RequestFactory requestFactory, ResponseCheck responseCheck) {
+        PerformanceMetrics metrics = new PerformanceMetrics()
+                .put(NUM_OBJECTS_COLUMN, numObjects)
+                .put(CLIENTS_COLUMN, clients);
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        int window = getAsyncWindow();
+        if (window <= 0) {
+            metrics.putAll(measurePerformanceMetrics(
+                    () -> runClients(numObjects, clients, requestFactory, responseCheck, null, histogram)));
+        } else {
+            try (AsyncRequestEngine engine = new AsyncRequestEngine(transport, window)) {
+                engine.addCompletionListener((request, response, failure, startNanos, endNanos) -> histogram.recordValue(endNanos - startNanos));
+                metrics.putAll(measurePerformanceMetrics(() -> {
+                    runClients(numObjects, clients, requestFactory, responseCheck, engine, null);
+                    engine.awaitCompletion();
+                }));
+                System.out.println("Pipelined " + engine.getCompleted() + " requests with a window of " + window);
+            }
+        }
+
+        double seconds = Math.max(Long.parseLong(metrics.get(TIME_TAKEN_COLUMN)), 1) / 1000.0;
+        return metrics.putAll(histogram.toPerformanceMetrics())
+                .put(THROUGHPUT_COLUMN, String.format("%.1f", histogram.getCount() / seconds))
+                .withHistogram(numObjects + "objects_" + clients + "clients", histogram);
+    }
+
+    // Arrival rates to run open-loop, from -Darrival.rates=500,1000 or 500, 1000 and 2000 req/s by default
+    public static double[] getArrivalRates() {
+        String rates = System.getProperty(ARRIVAL_RATES_PROPERTY);
+        if (rates == null || rates.isBlank()) {
+            return ARRIVAL_RATES_FOR_PERFORMANCE_TESTING;
+        }
+        return Arrays.stream(rates.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    // Send requests at a fixed arrival rate for -Darrival.duration seconds, independently of how fast the server answers.
+    // Poisson gaps are drawn from -Darrival.seed, so two runs at the same rate send on the same schedule
+    public PerformanceMetrics measureOpenLoopMetrics(double requestsPerSecond, RequestFactory requestFactory, ResponseCheck responseCheck) {
+        int duration = Integer.getInteger(ARRIVAL_DURATION_PROPERTY, DEFAULT_ARRIVAL_DURATION_SECONDS);
+        int numRequests = (int) Math.max(1, Math.round(requestsPerSecond * duration));
+        OpenLoopLoadGenerator.Arrivals arrivals = OpenLoopLoadGenerator.Arrivals.valueOf(
+                System.getProperty(ARRIVAL_DISTRIBUTION_PROPERTY, "constant").toUpperCase());
+
+        long seed = Long.getLong(ARRIVAL_SEED_PROPERTY, DEFAULT_ARRIVAL_SEED);
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(transport, requestsPerSecond, arrivals, seed);
+        List<OpenLoopLoadGenerator.Result> result = new ArrayList<>(1);
+        PerformanceMetrics resources = measurePerformanceMetrics(() -> result.add(generator.run(numRequests, requestFactory, responseCheck)));
+
+        OpenLoopLoadGenerator.Result run = result.get(0);
+        // Requests refused or timed out under load are part of the measurement and go in the Errors column, only a
+        // run where nothing succeeded or where the server answered 2xx with the wrong thing is a broken test
+        if (run.getFailures() == numRequests) {
+            throw new RuntimeException("All " + numRequests + " open-loop requests failed", run.getFirstFailure());
+        }
+        if (run.getRejectedSuccesses() > 0) {
+            throw new RuntimeException(run.getRejectedSuccesses() + " of " + numRequests
+                    + " open-loop requests were answered 2xx but failed their check", run.getFirstRejectedSuccess());
+        }
+        if (run.getFailures() > 0) {
+            System.out.println(run.getFailures() + " of " + numRequests + " open-loop requests failed, first: "
+                    + run.getFirstFailure().getCause());
+        }
+        return run.toPerformanceMetrics().putAll(resources)
+                .withHistogram(String.format("%.0f", requestsPerSecond) + "rps_" + arrivals.name().toLowerCase(), run.getLatencies());
+    }
+
+    // Client k of n sends requests k, k + n, k + 2n, ... on its own virtual thread
+    private void runClients(int numObjects, int clients, RequestFactory requestFactory, ResponseCheck responseCheck, AsyncRequestEngine engine, LatencyHistogram histogram) {
+        if (clients <= 1) {
+            runClient(0, 1, numObjects, requestFactory, responseCheck, engine, histogram);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                int firstIndex = client;
+                futures.add(executor.submit(() -> runClient(firstIndex, clients, numObjects, requestFactory, responseCheck, engine, histogram)));
+            }
         }
 
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for clients", e);
+            }
+        }
+    }
+
+    private void runClient(int firstIndex, int stride, int numObjects, RequestFactory requestFactory, ResponseCheck responseCheck, AsyncRequestEngine engine, LatencyHistogram histogram) {
+        for (int i = firstIndex; i < numObjects; i += stride) {
+            int index = i;
+            ApiRequest request = requestFactory.create(index);
+            if (engine != null) {
+                engine.submit(request, response -> responseCheck.verify(index, response));
+                continue;
+            }
+            try {
+                long start = System.nanoTime();
+                ApiResponse response = transport.send(request.getMethod(), request.getEndpoint(), request.getBody());
+                if (histogram != null) {
+                    histogram.recordValue(System.nanoTime() - start);
+                }
+                responseCheck.verify(index, response);
+            } catch (Throwable t) {
+                throw new RuntimeException("Request " + (index + 1) + " of " + numObjects + " (" + request + ") failed", t);
+            }
+        }
+    }
+
+    // To measure performance metrics, of the test JVM (the client) and of the server process it talks to
+    public PerformanceMetrics measurePerformanceMetrics(Runnable operation) {
+        ResourceMonitor resourceMonitor = new ResourceMonitor();
+
+        ServerProcessMonitor serverMonitor = isServerAlive() ? new ServerProcessMonitor(server.getPid()) : null;
+
         // Capture fresh baseline right before the operation
         resourceMonitor.captureNewBaseline();
+        resourceMonitor.start();
+        if (serverMonitor != null) {
+            serverMonitor.captureNewBaseline();
+            serverMonitor.start();
+        }
 
         long startTime = System.currentTimeMillis();
+        long endTime;
 
-        operation.run();
-
-        long endTime = System.currentTimeMillis();
-        resourceMonitor.stop();
+        // Stop the monitor even when the operation fails, otherwise its thread keeps the JVM alive
         try {
-            monitorThread.join();
-        } catch (InterruptedException e) {
-            throw new RuntimeException("Resource monitor thread interrupted", e);
+            operation.run();
+        } finally {
+            endTime = System.currentTimeMillis();
+            resourceMonitor.stop();
+            if (serverMonitor != null) {
+                serverMonitor.stop();
+            }
         }
 
         long timeTaken = endTime - startTime; // in milliseconds
 
-        List<String> metrics = List.of(
-                String.valueOf(timeTaken),
-                resourceMonitor.getAverageCpu(),
-                resourceMonitor.getAverageMemory()
-        );
-        return metrics;
+        PerformanceMetrics metrics = new PerformanceMetrics()
+                .put(TIME_TAKEN_COLUMN, timeTaken)
+                .put(CPU_USAGE_COLUMN, resourceMonitor.getAverageCpu())
+                .put(MEMORY_USAGE_COLUMN, resourceMonitor.getAverageMemory())
+                .put(PEAK_CPU_USAGE_COLUMN, resourceMonitor.getPeakCpu())
+                .put(CPU_USAGE_P50_COLUMN, resourceMonitor.getCpuPercentile(50))
+                .put(CPU_USAGE_P99_COLUMN, resourceMonitor.getCpuPercentile(99))
+                .put(MEMORY_USAGE_P1_COLUMN, resourceMonitor.getMemoryPercentile(1))
+                .put(RESOURCE_SAMPLES_COLUMN, resourceMonitor.getSampleCount());
+        return serverMonitor == null ? metrics : metrics.putAll(serverMonitor.toPerformanceMetrics());
     }
 
-    // To save performance metrics to CSV file
-    public void savePerformanceMetricsToCSV(String filePath, Map<Integer, List<String>> performanceMetrics) {
+    // To save performance metrics to CSV file, one row per run in the order they were measured,
+    // with each row's latency histogram under histograms/<csv name>/ so runs can be merged later
+    public void savePerformanceMetricsToCSV(String filePath, List<PerformanceMetrics> performanceMetrics) {
+        if (performanceMetrics.isEmpty()) {
+            return;
+        }
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            writer.println("Number of Objects,Time Taken (ms),CPU Usage (%),Memory Usage (MB)");
-
-            performanceMetrics.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
-                Integer numObjects = entry.getKey();
-                List<String> metrics = entry.getValue();
-                writer.println(numObjects + "," + metrics.get(0) + "," + metrics.get(1) + "," + metrics.get(2));
-                System.out.println("\n- Performance metrics for " + numObjects + " objects: Time Taken = " + metrics.get(0) + " ms, CPU Usage = " + metrics.get(1) + " %, Memory Usage = " + metrics.get(2) + " MB");
-            });
+            List<String> columns = new ArrayList<>(performanceMetrics.get(0).getColumns());
+            writer.println(String.join(",", columns));
+
+            for (PerformanceMetrics metrics : performanceMetrics) {
+                List<String> values = new ArrayList<>();
+                for (String column : columns) {
+                    values.add(metrics.get(column));
+                }
+                writer.println(String.join(",", values));
+                System.out.println("\n- Performance metrics: " + metrics);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file", e);
+        }
+
+        Path csvPath = Paths.get(filePath).toAbsolutePath();
+        String csvName = csvPath.getFileName().toString().replaceFirst("\\.csv$", "");
+        Path histogramDirectory = csvPath.getParent().resolve(HISTOGRAMS_DIRECTORY).resolve(csvName);
+        for (PerformanceMetrics metrics : performanceMetrics) {
+            if (metrics.getHistogram() == null) {
+                continue;
+            }
+            try {
+                metrics.getHistogram().write(histogramDirectory.resolve(metrics.getHistogramLabel() + HISTOGRAM_FILE_EXTENSION));
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing latency histogram for " + metrics.getHistogramLabel(), e);
+            }
+        }
+    }
+
+    // Adds one row to a CSV that may already hold rows from earlier runs, writing the header when the file is new
+    public void appendPerformanceMetricsToCSV(String filePath, PerformanceMetrics metrics) {
+        File file = new File(filePath);
+        boolean newFile = !file.exists() || file.length() == 0;
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+            List<String> columns = new ArrayList<>(metrics.getColumns());
+            if (newFile) {
+                writer.println(String.join(",", columns));
+            }
+            List<String> values = new ArrayList<>();
+            for (String column : columns) {
+                values.add(metrics.get(column));
+            }
+            writer.println(String.join(",", values));
         } catch (IOException e) {
             throw new RuntimeException("Error writing CSV file", e);
         }
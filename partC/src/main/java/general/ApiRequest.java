@@ -0,0 +1,27 @@
+package general;
+
+// A request that has been described but not sent yet
+public class ApiRequest {
+    private final String method;
+    private final String endpoint;
+    private final String body;
+
+    public ApiRequest(String method, String endpoint, String body) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.body = body;
+    }
+
+    public static ApiRequest withId(String method, String endpoint, String id, String body) {
+        return new ApiRequest(method, endpoint + "/" + id, body);
+    }
+
+    public String getMethod() { return method; }
+    public String getEndpoint() { return endpoint; }
+    public String getBody() { return body; }
+
+    @Override
+    public String toString() {
+        return method + " /" + endpoint;
+    }
+}
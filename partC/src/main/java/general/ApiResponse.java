@@ -0,0 +1,18 @@
+package general;
+
+// Fully read HTTP response, independent of the transport that produced it
+public class ApiResponse {
+    private final int responseCode;
+    private final String responseMessage;
+    private final String body;
+
+    public ApiResponse(int responseCode, String responseMessage, String body) {
+        this.responseCode = responseCode;
+        this.responseMessage = responseMessage;
+        this.body = body == null ? "" : body;
+    }
+
+    public int getResponseCode() { return responseCode; }
+    public String getResponseMessage() { return responseMessage; }
+    public String getBody() { return body; }
+}
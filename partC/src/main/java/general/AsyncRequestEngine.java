@@ -0,0 +1,147 @@
+package general;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Pipelines requests over a transport with at most maxInFlight of them outstanding at any time
+public class AsyncRequestEngine implements AutoCloseable {
+
+    // Called once per request when its response (or failure) arrives, on the thread that sent it,
+    // endNanos is taken when the response arrived so it does not include the time spent in the handler
+    public interface CompletionListener {
+        void onComplete(ApiRequest request, ApiResponse response, Throwable failure, long startNanos, long endNanos);
+    }
+
+    // Inspects a response on the sender thread, an exception marks the request as failed
+    public interface ResponseHandler {
+        void handle(ApiResponse response) throws Exception;
+    }
+
+    private final Transport transport;
+    private final int maxInFlight;
+    private final Semaphore window;
+    private final ExecutorService executor;
+    private final List<CompletionListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    public AsyncRequestEngine(Transport transport, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("In-flight window must be at least 1, got " + maxInFlight);
+        }
+        this.transport = transport;
+        this.maxInFlight = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+
+        // A virtual thread per request, the semaphore keeps at most maxInFlight of them alive
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("async-request-", 1).factory());
+    }
+
+    public void addCompletionListener(CompletionListener listener) {
+        listeners.add(listener);
+    }
+
+    public CompletableFuture<ApiResponse> submit(ApiRequest request) {
+        return submit(request, null);
+    }
+
+    // Blocks the caller while the window is full, then sends asynchronously and runs handler on the response
+    public CompletableFuture<ApiResponse> submit(ApiRequest request, ResponseHandler handler) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a free in-flight slot", e);
+        }
+        submitted.incrementAndGet();
+
+        CompletableFuture<ApiResponse> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long startNanos = System.nanoTime();
+                ApiResponse response = null;
+                Throwable failure = null;
+                try {
+                    response = transport.send(request.getMethod(), request.getEndpoint(), request.getBody());
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                long endNanos = System.nanoTime();
+
+                if (failure == null && handler != null) {
+                    try {
+                        handler.handle(response);
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                }
+
+                complete(request, response, failure, startNanos, endNanos);
+                if (failure == null) {
+                    future.complete(response);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            });
+        } catch (RuntimeException e) {
+            window.release();
+            throw e;
+        }
+        return future;
+    }
+
+    private void complete(ApiRequest request, ApiResponse response, Throwable failure, long startNanos, long endNanos) {
+        try {
+            for (CompletionListener listener : listeners) {
+                listener.onComplete(request, response, failure, startNanos, endNanos);
+            }
+        } catch (Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        } finally {
+            if (failure != null) {
+                failed.incrementAndGet();
+                firstFailure.compareAndSet(null, new RuntimeException("Request " + request + " failed", failure));
+            }
+            completed.incrementAndGet();
+            window.release();
+        }
+    }
+
+    // Waits until every submitted request has completed, then rethrows the first failure if any
+    public void awaitCompletion() {
+        try {
+            window.acquire(maxInFlight);
+            window.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for in-flight requests", e);
+        }
+
+        Throwable failure = firstFailure.get();
+        if (failure != null) {
+            throw new RuntimeException(failed.get() + " of " + completed.get() + " pipelined requests failed",
+                    failure);
+        }
+    }
+
+    public int getMaxInFlight() { return maxInFlight; }
+    public long getSubmitted() { return submitted.get(); }
+    public long getCompleted() { return completed.get(); }
+    public long getFailed() { return failed.get(); }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package general;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import server.ServerLaunchProfile;
+
+import static general.CommonConstants.CATEGORIES_ENDPOINT;
+import static general.CommonConstants.CDS_TRAINING_ROUNDS_PROPERTY;
+import static general.CommonConstants.DEFAULT_CDS_TRAINING_ROUNDS;
+import static general.CommonConstants.DELETE_METHOD;
+import static general.CommonConstants.GET_METHOD;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.PROJECTS_ENDPOINT;
+import static general.CommonConstants.PUT_METHOD;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Builds an AppCDS archive for the server jar with a training run: the server is started with
+// -XX:ArchiveClassesAtExit, sent every kind of request the tests send so the classes they load are archived,
+// and stopped, which makes the JVM write the archive. Later launches with -Dserver.cdsArchive map those classes
+// in instead of loading and verifying them again. The archive only works with the JDK that wrote it
+public class CdsArchiveTrainer extends Api {
+
+    private final ServerLaunchProfile trainingProfile;
+    private final int rounds = Integer.getInteger(CDS_TRAINING_ROUNDS_PROPERTY, DEFAULT_CDS_TRAINING_ROUNDS);
+
+    private CdsArchiveTrainer(ServerLaunchProfile profile, Path archive) {
+        // Trained with the collector and heap it will be used with, so the archive is not rejected for a mismatch
+        this.trainingProfile = profile.withCdsArchive(null).withExtraJvmArgs("-XX:ArchiveClassesAtExit=" + archive);
+    }
+
+    // Usage: CdsArchiveTrainer [archive], by default -Dserver.cdsArchive, overwriting an existing archive
+    public static void main(String[] args) throws Exception {
+        String archive = args.length > 0 ? args[0] : System.getProperty(ServerLaunchProfile.CDS_ARCHIVE_PROPERTY);
+        if (archive == null || archive.isBlank()) {
+            throw new IllegalArgumentException("Pass the archive to write or set -D" + ServerLaunchProfile.CDS_ARCHIVE_PROPERTY);
+        }
+        train(ServerLaunchProfile.fromSystemProperties(), Path.of(archive));
+    }
+
+    // Writes the archive the profile is launched with if there is none yet
+    public static void ensureArchive(ServerLaunchProfile profile) throws Exception {
+        if (profile.getCdsArchive() != null && !Files.exists(Path.of(profile.getCdsArchive()))) {
+            train(profile, Path.of(profile.getCdsArchive()));
+        }
+    }
+
+    public static void train(ServerLaunchProfile profile, Path archive) throws Exception {
+        System.out.println("\n----------------------Training AppCDS archive " + archive);
+        if (archive.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(archive.toAbsolutePath().getParent());
+        }
+        // The JVM will not overwrite the read-only file it wrote last time
+        Files.deleteIfExists(archive);
+
+        CdsArchiveTrainer trainer = new CdsArchiveTrainer(profile, archive);
+        boolean trained = false;
+        trainer.startServer();
+        try {
+            for (int round = 0; round < trainer.rounds; round++) {
+                trainer.sendTrainingRequests();
+            }
+            trained = true;
+        } finally {
+            // Stopping the server is what writes the archive
+            trainer.stopServer();
+            if (!trained) {
+                // Half a training run would be taken for a finished archive by ensureArchive
+                Files.deleteIfExists(archive);
+            }
+        }
+
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("The server exited without writing " + archive + ", see its output:\n"
+                    + String.join("\n", getServerLog().getLines()));
+        }
+        System.out.println("Saved AppCDS archive " + archive + " (" + Files.size(archive) / 1024 + " KB)----------------------\n");
+    }
+
+    // Creates, reads, links, updates and deletes one of each object through every endpoint
+    private void sendTrainingRequests() throws Exception {
+        String todo = create(TODOS_ENDPOINT, toJson(Map.of("title", "training", "doneStatus", false, "description", "cds")));
+        String project = create(PROJECTS_ENDPOINT, toJson(Map.of("title", "training", "completed", false, "active", true, "description", "cds")));
+        String category = create(CATEGORIES_ENDPOINT, toJson(Map.of("title", "training", "description", "cds")));
+
+        for (String endpoint : new String[] { TODOS_ENDPOINT, PROJECTS_ENDPOINT, CATEGORIES_ENDPOINT }) {
+            expectStatus(200, request(endpoint, GET_METHOD, null));
+        }
+        expectStatus(200, requestWithId(TODOS_ENDPOINT, GET_METHOD, todo, null));
+        expectStatus(200, requestWithId(PROJECTS_ENDPOINT, GET_METHOD, project, null));
+        expectStatus(200, requestWithId(CATEGORIES_ENDPOINT, GET_METHOD, category, null));
+
+        expectStatus(201, request(TODOS_ENDPOINT + "/" + todo + "/tasksof", POST_METHOD, "{\"id\":\"" + project + "\"}"));
+        expectStatus(201, request(TODOS_ENDPOINT + "/" + todo + "/categories", POST_METHOD, "{\"id\":\"" + category + "\"}"));
+        expectStatus(201, request(CATEGORIES_ENDPOINT + "/" + category + "/projects", POST_METHOD, "{\"id\":\"" + project + "\"}"));
+        expectStatus(200, request(TODOS_ENDPOINT + "/" + todo + "/tasksof", GET_METHOD, null));
+        expectStatus(200, request(PROJECTS_ENDPOINT + "/" + project + "/tasks", GET_METHOD, null));
+        expectStatus(200, request(CATEGORIES_ENDPOINT + "/" + category + "/todos", GET_METHOD, null));
+        // Before the updates, a PUT replaces the whole object along with its relationships
+        expectStatus(200, request(TODOS_ENDPOINT + "/" + todo + "/tasksof/" + project, DELETE_METHOD, null));
+
+        expectStatus(200, requestWithId(TODOS_ENDPOINT, PUT_METHOD, todo, toJson(Map.of("title", "trained", "doneStatus", true))));
+        expectStatus(200, requestWithId(PROJECTS_ENDPOINT, PUT_METHOD, project, toJson(Map.of("title", "trained"))));
+        expectStatus(200, requestWithId(CATEGORIES_ENDPOINT, PUT_METHOD, category, toJson(Map.of("title", "trained"))));
+
+        expectStatus(200, requestWithId(TODOS_ENDPOINT, DELETE_METHOD, todo, null));
+        expectStatus(200, requestWithId(PROJECTS_ENDPOINT, DELETE_METHOD, project, null));
+        expectStatus(200, requestWithId(CATEGORIES_ENDPOINT, DELETE_METHOD, category, null));
+
+        // Errors take their own code paths through the server
+        expectStatus(404, requestWithId(TODOS_ENDPOINT, GET_METHOD, todo, null));
+        expectStatus(400, request(TODOS_ENDPOINT, POST_METHOD, "{\"doneStatus\":false}"));
+    }
+
+    private String create(String endpoint, String body) throws Exception {
+        ApiResponse response = request(endpoint, POST_METHOD, body);
+        expectStatus(201, response);
+        return ResponseReader.readId(response.getBody());
+    }
+
+    @Override
+    protected ServerLaunchProfile getServerLaunchProfile() {
+        return trainingProfile;
+    }
+}
@@ -0,0 +1,126 @@
+package general;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import server.ServerLaunchProfile;
+import server.ServerReadiness;
+
+import static general.CommonConstants.BANNER_COLUMN;
+import static general.CommonConstants.CDS_ARCHIVE_COLUMN;
+import static general.CommonConstants.CDS_LAUNCHES_PROPERTY;
+import static general.CommonConstants.DEFAULT_CDS_LAUNCHES;
+import static general.CommonConstants.DELETE_METHOD;
+import static general.CommonConstants.FIRST_GET_COLUMN;
+import static general.CommonConstants.FIRST_OK_COLUMN;
+import static general.CommonConstants.FIRST_POST_COLUMN;
+import static general.CommonConstants.FIRST_RESPONSE_COLUMN;
+import static general.CommonConstants.GET_METHOD;
+import static general.CommonConstants.LAUNCH_COLUMN;
+import static general.CommonConstants.PORT_OPEN_COLUMN;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Trains a fresh AppCDS archive, then launches the server alternately without and with it and compares startup
+// and first-request latency. Alternating keeps a slow stretch of the machine from landing on one side only.
+// Writes cdsStartup.csv, one row per launch and a mean row per side
+public class CdsStartupComparison extends Api {
+    private static final String[] COLUMNS = { PORT_OPEN_COLUMN, BANNER_COLUMN, FIRST_OK_COLUMN, FIRST_RESPONSE_COLUMN,
+            FIRST_GET_COLUMN, FIRST_POST_COLUMN };
+
+    private final ServerLaunchProfile baseProfile = ServerLaunchProfile.fromSystemProperties();
+    private final int launches = Integer.getInteger(CDS_LAUNCHES_PROPERTY, DEFAULT_CDS_LAUNCHES);
+
+    // The profile of the launch in progress, picked up by startServer()
+    private ServerLaunchProfile currentProfile;
+
+    public static void main(String[] args) throws Exception {
+        new CdsStartupComparison().run();
+    }
+
+    public void run() throws Exception {
+        Path archive = baseProfile.getCdsArchive() != null
+                ? Path.of(baseProfile.getCdsArchive())
+                : getResultsDirectory().resolve("todoManager.jsa");
+        System.out.println("\n----------------------AppCDS startup: " + launches + " launches with and without " + archive);
+
+        // Always retrained, an archive left over from another JDK or jar would silently not be used
+        CdsArchiveTrainer.train(baseProfile, archive);
+        ServerLaunchProfile withoutArchive = baseProfile.withCdsArchive(null);
+        ServerLaunchProfile withArchive = baseProfile.withCdsArchive(archive.toString());
+
+        List<PerformanceMetrics> without = new ArrayList<>();
+        List<PerformanceMetrics> with = new ArrayList<>();
+        for (int launch = 1; launch <= launches; launch++) {
+            without.add(measureLaunch(withoutArchive, launch, "none"));
+            with.add(measureLaunch(withArchive, launch, archive.getFileName().toString()));
+        }
+
+        List<PerformanceMetrics> rows = new ArrayList<>(without);
+        rows.addAll(with);
+        rows.add(mean(without, "none"));
+        rows.add(mean(with, archive.getFileName().toString()));
+        savePerformanceMetricsToCSV(getResultsDirectory().resolve("cdsStartup.csv").toString(), rows);
+
+        System.out.println("\nSaved AppCDS startup comparison----------------------\n");
+    }
+
+    private PerformanceMetrics measureLaunch(ServerLaunchProfile profile, int launch, String archiveName) throws Exception {
+        System.out.println("\n############# Launch " + launch + " of " + launches + ", archive: " + archiveName);
+        currentProfile = profile;
+        startServer();
+        try {
+            ServerReadiness.StartupTimings timings = getLastStartupTimings();
+
+            long start = System.nanoTime();
+            ApiResponse list = request(TODOS_ENDPOINT, GET_METHOD, null);
+            long firstResponse = System.nanoTime();
+            expectStatus(200, list);
+
+            long postStart = System.nanoTime();
+            ApiResponse created = request(TODOS_ENDPOINT, POST_METHOD, toJson(Map.of("title", "cds", "doneStatus", false)));
+            long postLatency = System.nanoTime() - postStart;
+            expectStatus(201, created);
+            expectStatus(200, requestWithId(TODOS_ENDPOINT, DELETE_METHOD, ResponseReader.readId(created.getBody()), null));
+
+            return new PerformanceMetrics()
+                    .put(CDS_ARCHIVE_COLUMN, archiveName)
+                    .put(LAUNCH_COLUMN, launch)
+                    .put(PORT_OPEN_COLUMN, String.format("%.1f", timings.getPortOpenMillis()))
+                    .put(BANNER_COLUMN, timings.getBannerMillis() < 0 ? "N/A" : String.format("%.1f", timings.getBannerMillis()))
+                    .put(FIRST_OK_COLUMN, String.format("%.1f", timings.getFirstOkMillis()))
+                    .put(FIRST_RESPONSE_COLUMN, String.format("%.1f", timings.millisSinceSpawn(firstResponse)))
+                    .put(FIRST_GET_COLUMN, String.format("%.3f", (firstResponse - start) / 1_000_000.0))
+                    .put(FIRST_POST_COLUMN, String.format("%.3f", postLatency / 1_000_000.0));
+        } finally {
+            stopServer();
+        }
+    }
+
+    private static PerformanceMetrics mean(List<PerformanceMetrics> launches, String archiveName) {
+        PerformanceMetrics mean = new PerformanceMetrics()
+                .put(CDS_ARCHIVE_COLUMN, archiveName)
+                .put(LAUNCH_COLUMN, "mean");
+        for (String column : COLUMNS) {
+            double total = 0;
+            int count = 0;
+            for (PerformanceMetrics launch : launches) {
+                try {
+                    total += Double.parseDouble(launch.get(column));
+                    count++;
+                } catch (NumberFormatException e) {
+                    // Banner not seen on that launch
+                }
+            }
+            mean.put(column, count == 0 ? "N/A" : String.format("%.3f", total / count));
+        }
+        return mean;
+    }
+
+    @Override
+    protected ServerLaunchProfile getServerLaunchProfile() {
+        return currentProfile == null ? super.getServerLaunchProfile() : currentProfile;
+    }
+}
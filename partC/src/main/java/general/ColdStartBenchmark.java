@@ -0,0 +1,180 @@
+package general;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import server.ServerReadiness;
+
+import static general.CommonConstants.BANNER_COLUMN;
+import static general.CommonConstants.CATEGORIES_ENDPOINT;
+import static general.CommonConstants.COLD_START_LAUNCHES_PROPERTY;
+import static general.CommonConstants.COLD_START_WARMUP_ROUNDS_PROPERTY;
+import static general.CommonConstants.COLD_START_WARM_SAMPLES_PROPERTY;
+import static general.CommonConstants.COLD_WARM_RATIO_COLUMN;
+import static general.CommonConstants.DEFAULT_COLD_START_LAUNCHES;
+import static general.CommonConstants.DEFAULT_COLD_START_WARMUP_ROUNDS;
+import static general.CommonConstants.DEFAULT_COLD_START_WARM_SAMPLES;
+import static general.CommonConstants.DELETE_METHOD;
+import static general.CommonConstants.ENDPOINT_COLUMN;
+import static general.CommonConstants.FIRST_OK_COLUMN;
+import static general.CommonConstants.FIRST_REQUEST_TOTAL_COLUMN;
+import static general.CommonConstants.FIRST_RESPONSE_COLUMN;
+import static general.CommonConstants.GET_METHOD;
+import static general.CommonConstants.LAUNCH_COLUMN;
+import static general.CommonConstants.PHASE_COLUMN;
+import static general.CommonConstants.PORT_OPEN_COLUMN;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.PROJECTS_ENDPOINT;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Launches the server jar over and over and measures what a client sees right after a restart: how long until the
+// port opens and the first request succeeds, and how slow the first request to each endpoint is next to the same
+// request once the server has warmed up. Writes coldStart.csv (one row per launch) and coldStartEndpoints.csv
+// (a cold and a warm row per endpoint, over all launches)
+public class ColdStartBenchmark extends Api {
+    private static final String COLD_PHASE = "cold";
+    private static final String WARM_PHASE = "warm";
+
+    private final int launches = Integer.getInteger(COLD_START_LAUNCHES_PROPERTY, DEFAULT_COLD_START_LAUNCHES);
+    private final int warmupRounds = Integer.getInteger(COLD_START_WARMUP_ROUNDS_PROPERTY, DEFAULT_COLD_START_WARMUP_ROUNDS);
+    private final int warmSamples = Integer.getInteger(COLD_START_WARM_SAMPLES_PROPERTY, DEFAULT_COLD_START_WARM_SAMPLES);
+
+    // One request per endpoint, in the order they are first sent after a launch
+    private final List<Probe> probes = List.of(
+            new Probe(GET_METHOD, TODOS_ENDPOINT, null),
+            new Probe(GET_METHOD, PROJECTS_ENDPOINT, null),
+            new Probe(GET_METHOD, CATEGORIES_ENDPOINT, null),
+            new Probe(GET_METHOD, TODOS_ENDPOINT + "/1", null),
+            new Probe(GET_METHOD, PROJECTS_ENDPOINT + "/1", null),
+            new Probe(GET_METHOD, CATEGORIES_ENDPOINT + "/1", null),
+            new Probe(GET_METHOD, TODOS_ENDPOINT + "/1/tasksof", null),
+            new Probe(GET_METHOD, TODOS_ENDPOINT + "/1/categories", null),
+            new Probe(GET_METHOD, PROJECTS_ENDPOINT + "/1/tasks", null),
+            new Probe(GET_METHOD, PROJECTS_ENDPOINT + "/1/categories", null),
+            new Probe(GET_METHOD, CATEGORIES_ENDPOINT + "/1/todos", null),
+            new Probe(GET_METHOD, CATEGORIES_ENDPOINT + "/1/projects", null),
+            new Probe(POST_METHOD, TODOS_ENDPOINT, "{\"title\":\"cold start\",\"doneStatus\":false}"));
+
+    public static void main(String[] args) throws Exception {
+        new ColdStartBenchmark().run();
+    }
+
+    public void run() throws Exception {
+        System.out.println("\n----------------------Cold start: " + launches + " launches, " + warmupRounds
+                + " warm-up rounds, " + warmSamples + " warm samples per endpoint");
+
+        List<PerformanceMetrics> launchRows = new ArrayList<>();
+        Map<Probe, LatencyHistogram> cold = new LinkedHashMap<>();
+        Map<Probe, LatencyHistogram> warm = new LinkedHashMap<>();
+        for (Probe probe : probes) {
+            cold.put(probe, new LatencyHistogram());
+            warm.put(probe, new LatencyHistogram());
+        }
+
+        for (int launch = 1; launch <= launches; launch++) {
+            System.out.println("\n############# Launch " + launch + " of " + launches);
+            startServer();
+            try {
+                ServerReadiness.StartupTimings timings = getLastStartupTimings();
+
+                // The very first requests the server sees, each sent once
+                long firstRequestsStart = System.nanoTime();
+                long firstResponse = 0;
+                for (Probe probe : probes) {
+                    cold.get(probe).recordValue(probe.send());
+                    if (firstResponse == 0) {
+                        firstResponse = System.nanoTime();
+                    }
+                }
+                long firstRequestsTotal = System.nanoTime() - firstRequestsStart;
+
+                for (int round = 0; round < warmupRounds; round++) {
+                    for (Probe probe : probes) {
+                        probe.send();
+                    }
+                }
+                // Rounds rather than one endpoint at a time, so every sample is taken at the same point of warm-up
+                for (int round = 0; round < warmSamples; round++) {
+                    for (Probe probe : probes) {
+                        warm.get(probe).recordValue(probe.send());
+                    }
+                }
+
+                launchRows.add(new PerformanceMetrics()
+                        .put(LAUNCH_COLUMN, launch)
+                        .put(PORT_OPEN_COLUMN, String.format("%.1f", timings.getPortOpenMillis()))
+                        .put(BANNER_COLUMN, timings.getBannerMillis() < 0 ? "N/A" : String.format("%.1f", timings.getBannerMillis()))
+                        .put(FIRST_OK_COLUMN, String.format("%.1f", timings.getFirstOkMillis()))
+                        .put(FIRST_RESPONSE_COLUMN, String.format("%.1f", timings.millisSinceSpawn(firstResponse)))
+                        .put(FIRST_REQUEST_TOTAL_COLUMN, String.format("%.3f", firstRequestsTotal / 1_000_000.0)));
+            } finally {
+                stopServer();
+            }
+        }
+
+        List<PerformanceMetrics> endpointRows = new ArrayList<>();
+        for (Probe probe : probes) {
+            LatencyHistogram coldLatencies = cold.get(probe);
+            LatencyHistogram warmLatencies = warm.get(probe);
+            double warmMedian = warmLatencies.getMillisAtPercentile(50);
+            endpointRows.add(new PerformanceMetrics()
+                    .put(ENDPOINT_COLUMN, probe)
+                    .put(PHASE_COLUMN, COLD_PHASE)
+                    .putAll(coldLatencies.toPerformanceMetrics())
+                    .put(COLD_WARM_RATIO_COLUMN, String.format("%.1f", warmMedian > 0 ? coldLatencies.getMillisAtPercentile(50) / warmMedian : 0))
+                    .withHistogram(COLD_PHASE + "_" + probe.getLabel(), coldLatencies));
+            endpointRows.add(new PerformanceMetrics()
+                    .put(ENDPOINT_COLUMN, probe)
+                    .put(PHASE_COLUMN, WARM_PHASE)
+                    .putAll(warmLatencies.toPerformanceMetrics())
+                    .put(COLD_WARM_RATIO_COLUMN, "1.0")
+                    .withHistogram(WARM_PHASE + "_" + probe.getLabel(), warmLatencies));
+        }
+
+        savePerformanceMetricsToCSV(getResultsDirectory().resolve("coldStart.csv").toString(), launchRows);
+        savePerformanceMetricsToCSV(getResultsDirectory().resolve("coldStartEndpoints.csv").toString(), endpointRows);
+
+        System.out.println("\nSaved cold start tests----------------------\n");
+    }
+
+    private static class Probe {
+        private final String method;
+        private final String endpoint;
+        private final String body;
+
+        Probe(String method, String endpoint, String body) {
+            this.method = method;
+            this.endpoint = endpoint;
+            this.body = body;
+        }
+
+        // Sends the request and returns how long it took in nanoseconds, failing on anything but success
+        long send() throws Exception {
+            long start = System.nanoTime();
+            ApiResponse response = request(endpoint, method, body);
+            long latency = System.nanoTime() - start;
+
+            if (method.equals(POST_METHOD)) {
+                expectStatus(201, response);
+                // Removed untimed so repeated creates do not grow the lists the GET probes read
+                String id = ResponseReader.readId(response.getBody());
+                expectStatus(200, requestWithId(endpoint, DELETE_METHOD, id, null));
+            } else {
+                expectStatus(200, response);
+            }
+            return latency;
+        }
+
+        String getLabel() {
+            return method.toLowerCase(Locale.ROOT) + "_" + endpoint.replace('/', '_');
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + endpoint;
+        }
+    }
+}
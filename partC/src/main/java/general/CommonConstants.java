@@ -3,7 +3,8 @@ package general;
 import java.nio.file.Paths;
 
 public class CommonConstants {
-    public static final String BASE_URL = "http://localhost:4567/";
+    // Every server listens on a port of its own from PortAllocator
+    public static final String BASE_URL_FORMAT = "http://localhost:%d/";
     public static final String PATH_TO_SERVER_JAR = Paths.get(System.getProperty("user.dir"), "lib", "runTodoManagerRestAPI-1.5.5.jar").toString();
     public static final String TODOS_ENDPOINT = "todos";
     public static final String CATEGORIES_ENDPOINT = "categories";
@@ -14,7 +15,162 @@ public class CommonConstants {
     public static final String POST_METHOD = "POST";
     public static final String PUT_METHOD = "PUT";
     public static final String DELETE_METHOD = "DELETE";
+    public static final String GET_METHOD = "GET";
+
+    // Transport selection: -Dtransport=pooled|legacy, -Dtransport.poolSize=N
+    public static final String TRANSPORT_PROPERTY = "transport";
+    public static final String POOL_SIZE_PROPERTY = "transport.poolSize";
+    public static final String POOLED_TRANSPORT = "pooled";
+    public static final String LEGACY_TRANSPORT = "legacy";
+    public static final int DEFAULT_POOL_SIZE = 256;
+
+    // Pipelining: -Dasync.window=N keeps up to N requests in flight, 0 sends them one at a time
+    public static final String ASYNC_WINDOW_PROPERTY = "async.window";
 
     public static final int[] NUM_OBJECTS_FOR_PERFORMANCE_TESTING = { 1, 5, 10, 50, 100, 500, 1000, 5000, 10000, 50000};
     public static final int MAX_NUM_OBJECTS_FOR_PERFORMANCE_TESTING = 50000;
+
+    // Concurrent clients: -Dclients=1,4,16 overrides the default sweep
+    public static final String CLIENTS_PROPERTY = "clients";
+    public static final int[] CONCURRENT_CLIENTS_FOR_PERFORMANCE_TESTING = { 1, 2, 4, 8, 16, 32, 64, 128, 256 };
+
+    // Open-loop load: -Darrival.rates=500,1000,2000 req/s, -Darrival.distribution=constant|poisson, -Darrival.duration=seconds per rate,
+    // -Darrival.seed=n for the Poisson gaps so a run can be repeated on the same schedule
+    public static final String ARRIVAL_RATES_PROPERTY = "arrival.rates";
+    public static final String ARRIVAL_DISTRIBUTION_PROPERTY = "arrival.distribution";
+    public static final String ARRIVAL_DURATION_PROPERTY = "arrival.duration";
+    public static final String ARRIVAL_SEED_PROPERTY = "arrival.seed";
+    public static final double[] ARRIVAL_RATES_FOR_PERFORMANCE_TESTING = { 500, 1000, 2000 };
+    public static final int DEFAULT_ARRIVAL_DURATION_SECONDS = 10;
+    public static final long DEFAULT_ARRIVAL_SEED = 429;
+
+    // Results go to results/, or -Dresults.dir, with one subdirectory per non-default server launch profile
+    public static final String RESULTS_DIR_PROPERTY = "results.dir";
+    public static final String PROFILES_DIRECTORY = "profiles";
+    // Matrix runs: -Dserver.profiles="g1;parallel/512m;zgc/1g/-XX:+AlwaysPreTouch", see ServerLaunchProfile.parse
+    public static final String SERVER_PROFILES_PROPERTY = "server.profiles";
+    public static final String DEFAULT_SERVER_PROFILES = "g1;parallel;serial;zgc";
+
+    // Minimum heap search: -Dheap.objects=N todos (each linked to a project), -Dheap.clients, the -Xmx range and
+    // resolution in MB, and how much worse than the unconstrained p99 a heap may be (0.25 = 25%)
+    public static final String HEAP_OBJECTS_PROPERTY = "heap.objects";
+    public static final String HEAP_CLIENTS_PROPERTY = "heap.clients";
+    public static final String HEAP_MIN_MB_PROPERTY = "heap.minMb";
+    public static final String HEAP_MAX_MB_PROPERTY = "heap.maxMb";
+    public static final String HEAP_RESOLUTION_MB_PROPERTY = "heap.resolutionMb";
+    public static final String HEAP_TOLERANCE_PROPERTY = "heap.tolerance";
+    public static final int DEFAULT_HEAP_OBJECTS = 50000;
+    public static final int DEFAULT_HEAP_CLIENTS = 16;
+    public static final int DEFAULT_HEAP_MIN_MB = 8;
+    public static final int DEFAULT_HEAP_MAX_MB = 1024;
+    public static final int DEFAULT_HEAP_RESOLUTION_MB = 8;
+    public static final double DEFAULT_HEAP_TOLERANCE = 0.25;
+
+    // Core scaling: -Dscaling.cores=1,2,4 active processors for the server (powers of two up to the machine's by default),
+    // with -Dscaling.objects per CRUD operation sent by -Dscaling.clients concurrent clients
+    public static final String SCALING_CORES_PROPERTY = "scaling.cores";
+    public static final String SCALING_OBJECTS_PROPERTY = "scaling.objects";
+    public static final String SCALING_CLIENTS_PROPERTY = "scaling.clients";
+    public static final int DEFAULT_SCALING_OBJECTS = 5000;
+    public static final int DEFAULT_SCALING_CLIENTS = 64;
+
+    // Cold start: -Dcoldstart.launches=N fresh servers, each sent -Dcoldstart.warmupRounds rounds of every probe
+    // before -Dcoldstart.warmSamples timed rounds of warm requests
+    public static final String COLD_START_LAUNCHES_PROPERTY = "coldstart.launches";
+    public static final String COLD_START_WARMUP_ROUNDS_PROPERTY = "coldstart.warmupRounds";
+    public static final String COLD_START_WARM_SAMPLES_PROPERTY = "coldstart.warmSamples";
+    public static final int DEFAULT_COLD_START_LAUNCHES = 10;
+    public static final int DEFAULT_COLD_START_WARMUP_ROUNDS = 500;
+    public static final int DEFAULT_COLD_START_WARM_SAMPLES = 50;
+
+    // Warm-up curve: -Dwarmup.requests=N create/update/delete cycles on a fresh server, rolling p50 over
+    // -Dwarmup.window requests, steady once it stays within -Dwarmup.tolerance (0.1 = 10%) of the final p50
+    public static final String WARMUP_REQUESTS_PROPERTY = "warmup.requests";
+    public static final String WARMUP_WINDOW_PROPERTY = "warmup.window";
+    public static final String WARMUP_TOLERANCE_PROPERTY = "warmup.tolerance";
+    public static final int DEFAULT_WARMUP_REQUESTS = 20000;
+    public static final int DEFAULT_WARMUP_WINDOW = 200;
+    public static final double DEFAULT_WARMUP_TOLERANCE = 0.1;
+
+    // AppCDS: -Dcds.launches=N launches each with and without the archive, trained with -Dcds.trainingRounds rounds
+    // of every kind of request. The archive itself is -Dserver.cdsArchive, see ServerLaunchProfile
+    public static final String CDS_LAUNCHES_PROPERTY = "cds.launches";
+    public static final String CDS_TRAINING_ROUNDS_PROPERTY = "cds.trainingRounds";
+    public static final int DEFAULT_CDS_LAUNCHES = 10;
+    public static final int DEFAULT_CDS_TRAINING_ROUNDS = 10;
+
+    // Client resource sampling: -Dmonitor.intervalMs=N samples the test JVM every N milliseconds
+    public static final String MONITOR_INTERVAL_PROPERTY = "monitor.intervalMs";
+    public static final long DEFAULT_MONITOR_INTERVAL_MS = 10;
+
+    // Results CSV columns
+    public static final String NUM_OBJECTS_COLUMN = "Number of Objects";
+    public static final String CLIENTS_COLUMN = "Concurrent Clients";
+    public static final String TIME_TAKEN_COLUMN = "Time Taken (ms)";
+    public static final String CPU_USAGE_COLUMN = "CPU Usage (%)";
+    public static final String MEMORY_USAGE_COLUMN = "Memory Usage (MB)";
+    public static final String PEAK_CPU_USAGE_COLUMN = "Peak CPU Usage (%)";
+    public static final String CPU_USAGE_P50_COLUMN = "CPU Usage p50 (%)";
+    public static final String CPU_USAGE_P99_COLUMN = "CPU Usage p99 (%)";
+    // Free memory like the Memory Usage column, the level only 1% of samples fell below
+    public static final String MEMORY_USAGE_P1_COLUMN = "Memory Usage p1 (MB)";
+    public static final String RESOURCE_SAMPLES_COLUMN = "Resource Samples";
+    public static final String REQUESTED_RATE_COLUMN = "Requested Rate (req/s)";
+    public static final String ARRIVALS_COLUMN = "Arrivals";
+    public static final String NUM_REQUESTS_COLUMN = "Number of Requests";
+    public static final String ACHIEVED_RATE_COLUMN = "Achieved Rate (req/s)";
+    public static final String ERRORS_COLUMN = "Errors";
+    public static final String SERVICE_TIME_P99_COLUMN = "Service Time p99 (ms)";
+    public static final String MAX_SEND_LAG_COLUMN = "Max Send Lag (ms)";
+    public static final String LATENCY_MIN_COLUMN = "Latency min (ms)";
+    public static final String LATENCY_MEAN_COLUMN = "Latency mean (ms)";
+    public static final String LATENCY_P50_COLUMN = "Latency p50 (ms)";
+    public static final String LATENCY_P90_COLUMN = "Latency p90 (ms)";
+    public static final String LATENCY_P99_COLUMN = "Latency p99 (ms)";
+    public static final String LATENCY_P999_COLUMN = "Latency p99.9 (ms)";
+    public static final String LATENCY_MAX_COLUMN = "Latency max (ms)";
+    public static final String THROUGHPUT_COLUMN = "Throughput (req/s)";
+    public static final String ACTIVE_PROCESSORS_COLUMN = "Active Processors";
+    public static final String OPERATION_COLUMN = "Operation";
+    public static final String SPEEDUP_COLUMN = "Speedup";
+    public static final String HEAP_COLUMN = "Heap (MB)";
+    public static final String PASSED_COLUMN = "Passed";
+    public static final String OUT_OF_MEMORY_COLUMN = "OutOfMemoryError";
+    public static final String REQUEST_FAILURES_COLUMN = "Request Failures";
+    public static final String P99_LIMIT_COLUMN = "p99 Limit (ms)";
+    public static final String LAUNCH_COLUMN = "Launch";
+    public static final String ENDPOINT_COLUMN = "Endpoint";
+    public static final String PHASE_COLUMN = "Phase";
+    public static final String FIRST_RESPONSE_COLUMN = "Spawn to First API Response (ms)";
+    public static final String FIRST_REQUEST_TOTAL_COLUMN = "First Requests Total (ms)";
+    public static final String COLD_WARM_RATIO_COLUMN = "Cold/Warm p50";
+    public static final String CDS_ARCHIVE_COLUMN = "AppCDS Archive";
+    public static final String FIRST_GET_COLUMN = "First GET (ms)";
+    public static final String FIRST_POST_COLUMN = "First POST (ms)";
+    public static final String REQUEST_INDEX_COLUMN = "Request Index";
+    public static final String REQUESTS_COLUMN = "Requests";
+    public static final String REQUESTS_TO_STEADY_STATE_COLUMN = "Requests to Steady State";
+    public static final String FIRST_REQUEST_COLUMN = "First Request (ms)";
+    public static final String STEADY_P50_COLUMN = "Steady p50 (ms)";
+    public static final String ROLLING_P50_SUFFIX = " rolling p50 (ms)";
+    // Server process columns, sampled from /proc/<pid> of the Todo Manager jar
+    public static final String SERVER_CPU_USAGE_COLUMN = "Server CPU Usage (%)";
+    public static final String SERVER_RSS_COLUMN = "Server RSS (MB)";
+    public static final String SERVER_PEAK_RSS_COLUMN = "Server Peak RSS (MB)";
+    public static final String SERVER_THREADS_COLUMN = "Server Threads";
+    public static final String SERVER_CONTEXT_SWITCHES_COLUMN = "Server Context Switches";
+    public static final String SERVER_DISK_READ_COLUMN = "Server Disk Read (KB)";
+    public static final String SERVER_DISK_WRITE_COLUMN = "Server Disk Write (KB)";
+    // Server startup columns, milliseconds from process spawn, one row per server started in serverStartup.csv
+    public static final String STARTUP_CSV_FILE = "serverStartup.csv";
+    public static final String STARTED_AT_COLUMN = "Started At";
+    public static final String TEST_CLASS_COLUMN = "Test Class";
+    public static final String LAUNCH_PROFILE_COLUMN = "Launch Profile";
+    public static final String PORT_OPEN_COLUMN = "Spawn to Port Open (ms)";
+    public static final String BANNER_COLUMN = "Spawn to Banner (ms)";
+    public static final String FIRST_OK_COLUMN = "Spawn to First 200 (ms)";
+
+    // Full latency histograms are written next to each results CSV, under histograms/<csv name>/
+    public static final String HISTOGRAMS_DIRECTORY = "histograms";
+    public static final String HISTOGRAM_FILE_EXTENSION = ".hist";
 }
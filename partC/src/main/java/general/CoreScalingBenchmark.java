@@ -0,0 +1,159 @@
+package general;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import models.Category;
+import models.Project;
+
+import server.ServerLaunchProfile;
+
+import static general.CommonConstants.ACTIVE_PROCESSORS_COLUMN;
+import static general.CommonConstants.CATEGORIES_ENDPOINT;
+import static general.CommonConstants.DEFAULT_SCALING_CLIENTS;
+import static general.CommonConstants.DEFAULT_SCALING_OBJECTS;
+import static general.CommonConstants.DELETE_METHOD;
+import static general.CommonConstants.OPERATION_COLUMN;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.PROJECTS_ENDPOINT;
+import static general.CommonConstants.PUT_METHOD;
+import static general.CommonConstants.SCALING_CLIENTS_PROPERTY;
+import static general.CommonConstants.SCALING_CORES_PROPERTY;
+import static general.CommonConstants.SCALING_OBJECTS_PROPERTY;
+import static general.CommonConstants.SPEEDUP_COLUMN;
+import static general.CommonConstants.THROUGHPUT_COLUMN;
+import static general.CommonConstants.TIME_TAKEN_COLUMN;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Runs the concurrent CRUD workload against servers limited to 1, 2, 4, ... processors with -XX:ActiveProcessorCount
+// and saves throughput and latency per core count to coreScaling.csv. Speedup is throughput relative to the
+// fewest cores, so a flat column means extra cores are wasted on the Todo Manager
+public class CoreScalingBenchmark extends Api {
+    private static final String ALL_OPERATIONS = "all";
+
+    private final ServerLaunchProfile baseProfile = ServerLaunchProfile.fromSystemProperties();
+    private final int numObjects = Integer.getInteger(SCALING_OBJECTS_PROPERTY, DEFAULT_SCALING_OBJECTS);
+    private final int clients = Integer.getInteger(SCALING_CLIENTS_PROPERTY, DEFAULT_SCALING_CLIENTS);
+
+    // The profile of the run in progress, picked up by startServer()
+    private ServerLaunchProfile currentProfile;
+
+    public static void main(String[] args) throws Exception {
+        new CoreScalingBenchmark().run();
+    }
+
+    // Active processor counts to try, from -Dscaling.cores or powers of two up to (and including) the machine's count
+    public static int[] getCoreCounts() {
+        String cores = System.getProperty(SCALING_CORES_PROPERTY);
+        if (cores != null && !cores.isBlank()) {
+            return Arrays.stream(cores.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        }
+        int available = Runtime.getRuntime().availableProcessors();
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (int count = 1; count <= available; count *= 2) {
+            counts.add(count);
+        }
+        counts.add(available);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public void run() throws Exception {
+        System.out.println("\n----------------------Core scaling: " + numObjects + " objects per operation, " + clients + " clients");
+
+        List<PerformanceMetrics> rows = new ArrayList<>();
+        // Throughput of each operation at the first core count, what speedup is relative to
+        Map<String, Double> baselineThroughput = new HashMap<>();
+
+        for (int cores : getCoreCounts()) {
+            System.out.println("\n############# Testing with " + cores + " active processors");
+            currentProfile = baseProfile.withExtraJvmArgs("-XX:ActiveProcessorCount=" + cores);
+
+            startServer();
+            try {
+                for (Map.Entry<String, PerformanceMetrics> operation : runWorkload().entrySet()) {
+                    double throughput = Double.parseDouble(operation.getValue().get(THROUGHPUT_COLUMN));
+                    double baseline = baselineThroughput.computeIfAbsent(operation.getKey(), key -> throughput);
+
+                    PerformanceMetrics row = new PerformanceMetrics()
+                            .put(ACTIVE_PROCESSORS_COLUMN, cores)
+                            .put(OPERATION_COLUMN, operation.getKey())
+                            .putAll(operation.getValue())
+                            .put(SPEEDUP_COLUMN, String.format("%.2f", baseline > 0 ? throughput / baseline : 0));
+                    rows.add(row.withHistogram(cores + "cores_" + operation.getKey().replace(' ', '_'), row.getHistogram()));
+                }
+            } finally {
+                stopServer();
+            }
+        }
+
+        savePerformanceMetricsToCSV(getResultsDirectory().resolve("coreScaling.csv").toString(), rows);
+
+        System.out.println("\nSaved core scaling tests----------------------\n");
+    }
+
+    // Creates, updates and deletes numObjects of each kind, one row per operation plus one for all of them together
+    private Map<String, PerformanceMetrics> runWorkload() {
+        latestCreatedTodoId.set(0);
+        latestCreatedProjectId.set(0);
+        latestCreatedCategoryId.set(0);
+
+        Map<String, PerformanceMetrics> operations = new LinkedHashMap<>();
+        // Todo.toPayloadMap() sends doneStatus as a string, which the server rejects, so todos are built like TodosApiTest does
+        runCrud(operations, TODOS_ENDPOINT, latestCreatedTodoId,
+                i -> toJson(Map.of("title", generateRandomString(1, 50, false), "doneStatus", generateRandomBoolean(),
+                        "description", generateRandomString(0, 200, true))));
+        runCrud(operations, PROJECTS_ENDPOINT, latestCreatedProjectId,
+                i -> toJson(new Project(generateRandomString(1, 50, false), generateRandomBoolean(), generateRandomBoolean(),
+                        generateRandomString(0, 200, true)).toPayloadMap()));
+        runCrud(operations, CATEGORIES_ENDPOINT, latestCreatedCategoryId,
+                i -> toJson(new Category(generateRandomString(1, 50, false), generateRandomString(0, 200, true)).toPayloadMap()));
+
+        // Every request of the run in one histogram, throughput over the time spent in all operations
+        LatencyHistogram all = new LatencyHistogram();
+        long timeTaken = 0;
+        for (PerformanceMetrics operation : operations.values()) {
+            all.add(operation.getHistogram());
+            timeTaken += Long.parseLong(operation.get(TIME_TAKEN_COLUMN));
+        }
+        operations.put(ALL_OPERATIONS, new PerformanceMetrics()
+                .put(TIME_TAKEN_COLUMN, timeTaken)
+                .putAll(all.toPerformanceMetrics())
+                .put(THROUGHPUT_COLUMN, String.format("%.1f", all.getCount() / Math.max(timeTaken / 1000.0, 0.001)))
+                .withHistogram(ALL_OPERATIONS, all));
+        return operations;
+    }
+
+    private void runCrud(Map<String, PerformanceMetrics> operations, String endpoint, AtomicInteger latestCreatedId, IntFunction<String> payload) {
+        // Payloads are built up front so generating them is not part of the measurement
+        String[] created = IntStream.range(0, numObjects).mapToObj(payload).toArray(String[]::new);
+        String[] updated = IntStream.range(0, numObjects).mapToObj(payload).toArray(String[]::new);
+
+        operations.put("create " + endpoint, measurePerformanceMetrics(numObjects, clients,
+                i -> new ApiRequest(POST_METHOD, endpoint, created[i]),
+                (i, response) -> {
+                    expectStatus(201, response);
+                    latestCreatedId.accumulateAndGet(Integer.parseInt(ResponseReader.readId(response.getBody())), Math::max);
+                }));
+
+        int startId = latestCreatedId.get() - numObjects + 1;
+        operations.put("update " + endpoint, measurePerformanceMetrics(numObjects, clients,
+                i -> ApiRequest.withId(PUT_METHOD, endpoint, String.valueOf(startId + i), updated[i]),
+                (i, response) -> expectStatus(200, response)));
+        operations.put("delete " + endpoint, measurePerformanceMetrics(numObjects, clients,
+                i -> ApiRequest.withId(DELETE_METHOD, endpoint, String.valueOf(startId + i), null),
+                (i, response) -> expectStatus(200, response)));
+    }
+
+    @Override
+    protected ServerLaunchProfile getServerLaunchProfile() {
+        return currentProfile == null ? super.getServerLaunchProfile() : currentProfile;
+    }
+}
@@ -0,0 +1,35 @@
+package general;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.After;
+import org.junit.Test;
+
+import static general.CommonConstants.SCALING_CORES_PROPERTY;
+
+public class CoreScalingBenchmarkTest {
+
+    @After
+    public void clearCores() {
+        System.clearProperty(SCALING_CORES_PROPERTY);
+    }
+
+    @Test
+    public void coreCountsFromProperty() {
+        System.setProperty(SCALING_CORES_PROPERTY, "1, 3,8");
+
+        assertArrayEquals(new int[] {1, 3, 8}, CoreScalingBenchmark.getCoreCounts());
+    }
+
+    @Test
+    public void defaultCoreCountsArePowersOfTwoUpToAvailable() {
+        int available = Runtime.getRuntime().availableProcessors();
+        int[] counts = CoreScalingBenchmark.getCoreCounts();
+
+        assertEquals(1, counts[0]);
+        assertEquals(available, counts[counts.length - 1]);
+        for (int i = 1; i < counts.length - 1; i++) {
+            assertEquals(counts[i - 1] * 2, counts[i]);
+        }
+    }
+}
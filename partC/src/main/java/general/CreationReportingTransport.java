@@ -0,0 +1,40 @@
+package general;
+
+import server.ServerLifecycleManager;
+
+// Tells the lifecycle manager of the test that started the server about every object created through the transport,
+// so a reused server's reset deletes exactly those instead of listing every collection. Requests are sent from
+// sender threads, so the manager is the one captured when the server started rather than the sending thread's own
+public class CreationReportingTransport implements Transport {
+    private final Transport transport;
+    private final ServerLifecycleManager manager;
+    private final String baseUrl;
+
+    public CreationReportingTransport(Transport transport, ServerLifecycleManager manager, String baseUrl) {
+        this.transport = transport;
+        this.manager = manager;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public ApiResponse send(String method, String endpoint, String body) throws Exception {
+        ApiResponse response = transport.send(method, endpoint, body);
+        manager.recordResponse(baseUrl, method, endpoint, response.getResponseCode(), response.getBody());
+        return response;
+    }
+
+    @Override
+    public <T> T stream(String endpoint, BodyReader<T> reader) throws Exception {
+        return transport.stream(endpoint, reader);
+    }
+
+    @Override
+    public String getName() {
+        return transport.getName();
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+    }
+}
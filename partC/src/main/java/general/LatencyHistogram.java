@@ -0,0 +1,184 @@
+package general;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static general.CommonConstants.LATENCY_MAX_COLUMN;
+import static general.CommonConstants.LATENCY_MEAN_COLUMN;
+import static general.CommonConstants.LATENCY_MIN_COLUMN;
+import static general.CommonConstants.LATENCY_P50_COLUMN;
+import static general.CommonConstants.LATENCY_P90_COLUMN;
+import static general.CommonConstants.LATENCY_P999_COLUMN;
+import static general.CommonConstants.LATENCY_P99_COLUMN;
+
+// HDR-style histogram of latencies in nanoseconds: values below 2048 get their own bucket, larger ones are
+// kept to 11 significant bits (better than 0.1% relative error), so memory stays fixed however many are recorded
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 11;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    // Enough buckets for any non-negative long
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+    private static final String FILE_HEADER = "# LatencyHistogram unit=ns subBucketBits=" + SUB_BUCKET_BITS;
+
+    // Safe to record into from many sender threads at once
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordValue(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        sum.addAndGet(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift so the value keeps its top SUB_BUCKET_BITS bits, landing in [SUB_BUCKET_HALF_COUNT, SUB_BUCKET_COUNT)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        return (long) (offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT) << shift;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+
+    // Adds every value recorded in other, e.g. to merge the histograms of repeated runs
+    public LatencyHistogram add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        if (other.getCount() > 0) {
+            totalCount.addAndGet(other.totalCount.get());
+            sum.addAndGet(other.sum.get());
+            min.accumulateAndGet(other.min.get(), Math::min);
+            max.accumulateAndGet(other.max.get(), Math::max);
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMinNanos() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    // Smallest recorded value that at least the given percentage of values are less than or equal to,
+    // reported as the top of its bucket so percentiles never under-state the latency
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public double getMillisAtPercentile(double percentile) {
+        return getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    // Latency summary columns for a results CSV row
+    public PerformanceMetrics toPerformanceMetrics() {
+        return new PerformanceMetrics()
+                .put(LATENCY_MIN_COLUMN, String.format("%.3f", getMinNanos() / 1_000_000.0))
+                .put(LATENCY_MEAN_COLUMN, String.format("%.3f", getMeanNanos() / 1_000_000.0))
+                .put(LATENCY_P50_COLUMN, String.format("%.3f", getMillisAtPercentile(50)))
+                .put(LATENCY_P90_COLUMN, String.format("%.3f", getMillisAtPercentile(90)))
+                .put(LATENCY_P99_COLUMN, String.format("%.3f", getMillisAtPercentile(99)))
+                .put(LATENCY_P999_COLUMN, String.format("%.3f", getMillisAtPercentile(99.9)))
+                .put(LATENCY_MAX_COLUMN, String.format("%.3f", getMaxNanos() / 1_000_000.0));
+    }
+
+    // Writes the non-empty buckets as "lowest value in bucket,count" lines, which read() turns back into a histogram
+    public void write(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println(FILE_HEADER);
+            writer.println("# count=" + getCount() + " sum=" + sum.get() + " min=" + getMinNanos() + " max=" + getMaxNanos());
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = counts.get(i);
+                if (count > 0) {
+                    writer.println(lowestValueAt(i) + "," + count);
+                }
+            }
+        }
+    }
+
+    public static LatencyHistogram read(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        if (lines.isEmpty() || !lines.get(0).equals(FILE_HEADER)) {
+            throw new IOException("Not a latency histogram file: " + path);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (String line : lines) {
+            if (line.startsWith("# count=")) {
+                for (String field : line.substring(2).split(" ")) {
+                    String[] entry = field.split("=");
+                    long value = Long.parseLong(entry[1]);
+                    switch (entry[0]) {
+                        case "count" -> histogram.totalCount.set(value);
+                        case "sum" -> histogram.sum.set(value);
+                        case "min" -> histogram.min.set(value);
+                        case "max" -> histogram.max.set(value);
+                        default -> { }
+                    }
+                }
+            } else if (!line.startsWith("#") && !line.isBlank()) {
+                String[] bucket = line.split(",");
+                histogram.counts.addAndGet(bucketIndex(Long.parseLong(bucket[0])), Long.parseLong(bucket[1]));
+            }
+        }
+        if (histogram.getCount() == 0) {
+            histogram.min.set(Long.MAX_VALUE);
+        }
+        return histogram;
+    }
+}
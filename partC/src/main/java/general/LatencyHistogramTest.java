@@ -0,0 +1,114 @@
+package general;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    // Values 1 ms to 1000 ms, one of each
+    private static LatencyHistogram oneToThousandMillis() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.recordValue(i * MILLIS);
+        }
+        return histogram;
+    }
+
+    // Percentiles are reported as the top of their bucket, so they may over-state the value by the bucket's width only
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue("expected at least " + expected + " but was " + actual, actual >= expected);
+        assertTrue("expected at most " + expected + " + 0.1% but was " + actual, actual <= expected + expected / 1000);
+    }
+
+    @Test
+    public void percentilesOfUniformValues() {
+        LatencyHistogram histogram = oneToThousandMillis();
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(MILLIS, histogram.getMinNanos());
+        assertEquals(1000 * MILLIS, histogram.getMaxNanos());
+        assertEquals(500.5 * MILLIS, histogram.getMeanNanos(), 1);
+        assertWithinBucket(500 * MILLIS, histogram.getValueAtPercentile(50));
+        assertWithinBucket(900 * MILLIS, histogram.getValueAtPercentile(90));
+        assertWithinBucket(990 * MILLIS, histogram.getValueAtPercentile(99));
+        assertEquals(1000 * MILLIS, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMinNanos());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMeanNanos(), 0);
+    }
+
+    @Test
+    public void negativeValuesRecordAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordValue(-5);
+
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(1, histogram.getCount());
+    }
+
+    @Test
+    public void addMergesCountsAndExtremes() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            fast.recordValue(MILLIS);
+        }
+        slow.recordValue(200 * MILLIS);
+
+        LatencyHistogram merged = new LatencyHistogram().add(fast).add(slow);
+
+        assertEquals(100, merged.getCount());
+        assertEquals(MILLIS, merged.getMinNanos());
+        assertEquals(200 * MILLIS, merged.getMaxNanos());
+        assertWithinBucket(MILLIS, merged.getValueAtPercentile(99));
+        assertEquals(200 * MILLIS, merged.getValueAtPercentile(99.9));
+        // Merging an empty histogram changes nothing
+        merged.add(new LatencyHistogram());
+        assertEquals(MILLIS, merged.getMinNanos());
+        assertEquals(100, merged.getCount());
+    }
+
+    @Test
+    public void writeThenReadKeepsPercentiles() throws Exception {
+        LatencyHistogram histogram = oneToThousandMillis();
+        Path file = Files.createTempFile("latency", ".hist");
+        try {
+            histogram.write(file);
+            LatencyHistogram read = LatencyHistogram.read(file);
+
+            assertEquals(histogram.getCount(), read.getCount());
+            assertEquals(histogram.getMinNanos(), read.getMinNanos());
+            assertEquals(histogram.getMaxNanos(), read.getMaxNanos());
+            assertEquals(histogram.getMeanNanos(), read.getMeanNanos(), 0);
+            for (double percentile : new double[] {50, 90, 99, 99.9}) {
+                assertEquals(histogram.getValueAtPercentile(percentile), read.getValueAtPercentile(percentile));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
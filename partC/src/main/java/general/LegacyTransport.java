@@ -0,0 +1,81 @@
+package general;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static general.CommonConstants.JSON_FORMAT;
+import static general.CommonConstants.LEGACY_TRANSPORT;
+
+// Original behaviour: a new HttpURLConnection per request, kept so older results stay comparable
+public class LegacyTransport implements Transport {
+    private final String baseUrl;
+
+    public LegacyTransport(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public ApiResponse send(String method, String endpoint, String body) throws Exception {
+        URL url = new URL(baseUrl + endpoint);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", JSON_FORMAT);
+        connection.setRequestProperty("Content-Type", JSON_FORMAT);
+        connection.setDoOutput(true);
+        if (body != null && !body.isEmpty()) {
+            connection.setDoInput(true);
+            connection.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int responseCode = connection.getResponseCode();
+        String responseMessage = connection.getResponseMessage();
+
+        StringBuilder response = new StringBuilder();
+        BufferedReader reader;
+
+        if (connection.getErrorStream() != null) {
+            reader = new BufferedReader(new InputStreamReader(connection.getErrorStream(), StandardCharsets.UTF_8));
+        }
+        else {
+            reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+
+        return new ApiResponse(responseCode, responseMessage, response.toString());
+    }
+
+    @Override
+    public <T> T stream(String endpoint, BodyReader<T> reader) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + endpoint).openConnection();
+        connection.setRequestMethod("GET");
+        connection.setRequestProperty("Accept", JSON_FORMAT);
+
+        int responseCode = connection.getResponseCode();
+        InputStream errors = connection.getErrorStream();
+        try (InputStream body = errors != null ? errors : connection.getInputStream()) {
+            return reader.read(responseCode, body);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return LEGACY_TRANSPORT;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is shared between requests
+    }
+}
@@ -0,0 +1,220 @@
+package general;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import graph.PlotGraph;
+
+import server.ServerLaunchProfile;
+
+import static general.CommonConstants.DEFAULT_HEAP_CLIENTS;
+import static general.CommonConstants.DEFAULT_HEAP_MAX_MB;
+import static general.CommonConstants.DEFAULT_HEAP_MIN_MB;
+import static general.CommonConstants.DEFAULT_HEAP_OBJECTS;
+import static general.CommonConstants.DEFAULT_HEAP_RESOLUTION_MB;
+import static general.CommonConstants.DEFAULT_HEAP_TOLERANCE;
+import static general.CommonConstants.HEAP_CLIENTS_PROPERTY;
+import static general.CommonConstants.HEAP_COLUMN;
+import static general.CommonConstants.HEAP_MAX_MB_PROPERTY;
+import static general.CommonConstants.HEAP_MIN_MB_PROPERTY;
+import static general.CommonConstants.HEAP_OBJECTS_PROPERTY;
+import static general.CommonConstants.HEAP_RESOLUTION_MB_PROPERTY;
+import static general.CommonConstants.HEAP_TOLERANCE_PROPERTY;
+import static general.CommonConstants.OUT_OF_MEMORY_COLUMN;
+import static general.CommonConstants.P99_LIMIT_COLUMN;
+import static general.CommonConstants.PASSED_COLUMN;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.REQUEST_FAILURES_COLUMN;
+import static general.CommonConstants.SERVER_PEAK_RSS_COLUMN;
+import static general.CommonConstants.THROUGHPUT_COLUMN;
+import static general.CommonConstants.TIME_TAKEN_COLUMN;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Binary-searches the smallest -Xmx at which the server still runs a fixed workload without an OutOfMemoryError
+// and with a p99 latency within a tolerance of the run without a heap limit. Every heap tried is a row of
+// minimumHeap.csv, and the heap/latency curve is drawn to minimumHeap.png next to it
+public class MinimumHeapFinder extends Api {
+
+    private final ServerLaunchProfile baseProfile = ServerLaunchProfile.fromSystemProperties();
+    private final Path resultsDirectory = getResultsDirectory();
+    private final int numObjects = Integer.getInteger(HEAP_OBJECTS_PROPERTY, DEFAULT_HEAP_OBJECTS);
+    private final int clients = Integer.getInteger(HEAP_CLIENTS_PROPERTY, DEFAULT_HEAP_CLIENTS);
+
+    // The profile and server log of the run in progress, picked up by startServer()
+    private ServerLaunchProfile currentProfile;
+    private File currentServerLog;
+
+    public static void main(String[] args) throws Exception {
+        new MinimumHeapFinder().search();
+    }
+
+    public void search() throws Exception {
+        int minMb = Integer.getInteger(HEAP_MIN_MB_PROPERTY, DEFAULT_HEAP_MIN_MB);
+        int maxMb = Integer.getInteger(HEAP_MAX_MB_PROPERTY, DEFAULT_HEAP_MAX_MB);
+        int resolutionMb = Math.max(1, Integer.getInteger(HEAP_RESOLUTION_MB_PROPERTY, DEFAULT_HEAP_RESOLUTION_MB));
+        double tolerance = Double.parseDouble(System.getProperty(HEAP_TOLERANCE_PROPERTY, String.valueOf(DEFAULT_HEAP_TOLERANCE)));
+
+        System.out.println("\n----------------------Minimum heap search: " + numObjects + " todos with relationships, "
+                + clients + " clients, " + minMb + "-" + maxMb + " MB");
+
+        List<PerformanceMetrics> runs = new ArrayList<>();
+
+        // The JVM's default heap is the reference the constrained runs are held to
+        WorkloadRun unconstrained = runWorkload(null);
+        if (!unconstrained.passed()) {
+            throw new IllegalStateException("The workload fails even without a heap limit, see " + unconstrained.serverLog);
+        }
+        double p99Limit = unconstrained.histogram.getMillisAtPercentile(99) * (1 + tolerance);
+        runs.add(unconstrained.toPerformanceMetrics("unconstrained", p99Limit, true));
+        System.out.println("Unconstrained p99 is " + String.format("%.3f", unconstrained.histogram.getMillisAtPercentile(99))
+                + " ms, heaps must stay within " + String.format("%.3f", p99Limit) + " ms");
+
+        int smallest = findSmallestPassingHeap(minMb, maxMb, resolutionMb, heapMb -> {
+            WorkloadRun run = runWorkload(heapMb);
+            boolean passed = run.passed(p99Limit);
+            runs.add(run.toPerformanceMetrics(String.valueOf(heapMb), p99Limit, passed));
+            return passed;
+        });
+        if (smallest < 0) {
+            System.out.println("The workload does not pass at the maximum heap of " + maxMb + " MB, raise " + HEAP_MAX_MB_PROPERTY);
+        } else if (smallest == minMb) {
+            System.out.println("The workload passes at the minimum heap of " + minMb + " MB, lower " + HEAP_MIN_MB_PROPERTY);
+        } else {
+            System.out.println("\nSmallest heap that passed: " + smallest + " MB (to within " + resolutionMb + " MB)");
+        }
+
+        String csvPath = resultsDirectory.resolve("minimumHeap.csv").toString();
+        savePerformanceMetricsToCSV(csvPath, runs);
+        new PlotGraph().plotHeapCurve(csvPath, resultsDirectory.resolve("minimumHeap.png").toString());
+
+        System.out.println("\nSaved minimum heap search----------------------\n");
+    }
+
+    // Tries maxMb, then minMb, then bisects between them until the bounds are within resolutionMb. Returns the smallest
+    // heap that passed, or -1 when even maxMb fails. Assumes a heap that passes keeps passing at any larger size
+    static int findSmallestPassingHeap(int minMb, int maxMb, int resolutionMb, HeapTrial trial) throws Exception {
+        if (!trial.passes(maxMb)) {
+            return -1;
+        }
+        if (minMb >= maxMb || trial.passes(minMb)) {
+            return Math.min(minMb, maxMb);
+        }
+        // Invariant: the workload passes at high and fails at low
+        int low = minMb;
+        int high = maxMb;
+        while (high - low > resolutionMb) {
+            int middle = low + (high - low) / 2;
+            if (trial.passes(middle)) {
+                high = middle;
+            } else {
+                low = middle;
+            }
+        }
+        return high;
+    }
+
+    interface HeapTrial {
+        boolean passes(int heapMb) throws Exception;
+    }
+
+    // Starts a server with the given -Xmx (null for none), creates the todos, links each to a project, stops the server
+    private WorkloadRun runWorkload(Integer heapMb) throws Exception {
+        String label = heapMb == null ? "unconstrained" : heapMb + "m";
+        System.out.println("\n############# Running the workload with heap " + label);
+
+        // Exiting on OutOfMemoryError makes the remaining requests fail fast instead of waiting on a wedged server
+        currentProfile = baseProfile.withHeap(heapMb == null ? null : heapMb + "m", "-XX:+ExitOnOutOfMemoryError");
+        currentServerLog = resultsDirectory.resolve("minimumHeap-server-" + label + ".log").toFile();
+
+        WorkloadRun run = new WorkloadRun(currentServerLog.toPath());
+        Files.deleteIfExists(run.serverLog);
+        latestCreatedTodoId.set(0);
+        try {
+            // A heap too small to boot the server fails here, and counts as a failing heap like any other
+            startServer();
+            PerformanceMetrics create = measurePerformanceMetrics(numObjects, clients,
+                    i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT, toJson(Map.of(
+                            "title", "heap-" + i, "description", generateRandomString(0, 200, true)))),
+                    (i, response) -> {
+                        expectStatus(201, response);
+                        latestCreatedTodoId.accumulateAndGet(Integer.parseInt(ResponseReader.readId(response.getBody())), Math::max);
+                    });
+            run.add(create);
+
+            int startId = latestCreatedTodoId.get() - numObjects + 1;
+            PerformanceMetrics link = measurePerformanceMetrics(numObjects, clients,
+                    i -> new ApiRequest(POST_METHOD, TODOS_ENDPOINT + "/" + (startId + i) + "/tasksof", "{\"id\":\"1\"}"),
+                    (i, response) -> expectStatus(201, response));
+            run.add(link);
+        } catch (Exception e) {
+            run.failure = e;
+            System.out.println("Workload failed with heap " + label + ": " + e.getMessage());
+        } finally {
+            stopServer();
+        }
+
+        run.outOfMemory = Files.exists(run.serverLog)
+                && Files.readString(run.serverLog).contains("OutOfMemoryError");
+        return run;
+    }
+
+    @Override
+    protected ServerLaunchProfile getServerLaunchProfile() {
+        return currentProfile == null ? super.getServerLaunchProfile() : currentProfile;
+    }
+
+    @Override
+    protected File getServerLogFile() {
+        return currentServerLog;
+    }
+
+    private static class WorkloadRun {
+        private final Path serverLog;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long timeTaken;
+        private double peakRssMb;
+        private Exception failure;
+        private boolean outOfMemory;
+
+        WorkloadRun(Path serverLog) {
+            this.serverLog = serverLog;
+        }
+
+        void add(PerformanceMetrics phase) {
+            histogram.add(phase.getHistogram());
+            timeTaken += Long.parseLong(phase.get(TIME_TAKEN_COLUMN));
+            try {
+                peakRssMb = Math.max(peakRssMb, Double.parseDouble(phase.get(SERVER_PEAK_RSS_COLUMN)));
+            } catch (NumberFormatException e) {
+                // Not sampled on this system
+            }
+        }
+
+        boolean passed() {
+            return failure == null && !outOfMemory;
+        }
+
+        boolean passed(double p99Limit) {
+            return passed() && histogram.getMillisAtPercentile(99) <= p99Limit;
+        }
+
+        PerformanceMetrics toPerformanceMetrics(String heap, double p99Limit, boolean passed) {
+            boolean measured = failure == null;
+            return new PerformanceMetrics()
+                    .put(HEAP_COLUMN, heap)
+                    .put(PASSED_COLUMN, passed)
+                    .put(OUT_OF_MEMORY_COLUMN, outOfMemory)
+                    .put(REQUEST_FAILURES_COLUMN, !measured)
+                    .put(TIME_TAKEN_COLUMN, timeTaken)
+                    .put(THROUGHPUT_COLUMN, measured ? String.format("%.1f", histogram.getCount() / Math.max(timeTaken / 1000.0, 0.001)) : "N/A")
+                    .putAll(measured ? histogram.toPerformanceMetrics() : new PerformanceMetrics())
+                    .put(P99_LIMIT_COLUMN, String.format("%.3f", p99Limit))
+                    .put(SERVER_PEAK_RSS_COLUMN, String.format("%.2f", peakRssMb))
+                    .withHistogram("heap_" + heap, histogram);
+        }
+    }
+}
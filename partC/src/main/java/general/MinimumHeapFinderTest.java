@@ -0,0 +1,57 @@
+package general;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+// The bisection alone, with a fake workload that passes at and above a threshold, so no server is started
+public class MinimumHeapFinderTest {
+
+    private final List<Integer> tried = new ArrayList<>();
+
+    private MinimumHeapFinder.HeapTrial passesFrom(int thresholdMb) {
+        return heapMb -> {
+            tried.add(heapMb);
+            return heapMb >= thresholdMb;
+        };
+    }
+
+    @Test
+    public void findsThresholdWithinResolution() throws Exception {
+        int smallest = MinimumHeapFinder.findSmallestPassingHeap(16, 512, 8, passesFrom(100));
+
+        assertTrue(smallest >= 100);
+        assertTrue(smallest - 100 < 8);
+        assertEquals(512, (int) tried.get(0));
+        assertEquals(16, (int) tried.get(1));
+    }
+
+    @Test
+    public void exactThresholdAtResolutionOne() throws Exception {
+        assertEquals(100, MinimumHeapFinder.findSmallestPassingHeap(16, 512, 1, passesFrom(100)));
+    }
+
+    @Test
+    public void reportsMinimumWhenItPasses() throws Exception {
+        assertEquals(16, MinimumHeapFinder.findSmallestPassingHeap(16, 512, 8, passesFrom(8)));
+        assertEquals(2, tried.size());
+    }
+
+    @Test
+    public void stopsWhenMaximumFails() throws Exception {
+        assertEquals(-1, MinimumHeapFinder.findSmallestPassingHeap(16, 512, 8, passesFrom(1024)));
+        assertEquals(1, tried.size());
+    }
+
+    @Test
+    public void neverTriesOutsideBounds() throws Exception {
+        MinimumHeapFinder.findSmallestPassingHeap(16, 512, 4, passesFrom(300));
+
+        for (int heapMb : tried) {
+            assertTrue(heapMb >= 16 && heapMb <= 512);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package general;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static general.CommonConstants.ACHIEVED_RATE_COLUMN;
+import static general.CommonConstants.ARRIVALS_COLUMN;
+import static general.CommonConstants.ERRORS_COLUMN;
+import static general.CommonConstants.MAX_SEND_LAG_COLUMN;
+import static general.CommonConstants.NUM_REQUESTS_COLUMN;
+import static general.CommonConstants.REQUESTED_RATE_COLUMN;
+import static general.CommonConstants.SERVICE_TIME_P99_COLUMN;
+
+// Open-loop load: each request starts at its scheduled time whether or not earlier ones have been answered,
+// and latency is measured from that scheduled time, so a stalled server cannot hide the queue it builds up
+public class OpenLoopLoadGenerator {
+
+    public enum Arrivals { CONSTANT, POISSON }
+
+    private final Transport transport;
+    private final double requestsPerSecond;
+    private final Arrivals arrivals;
+    private final Random random;
+
+    public OpenLoopLoadGenerator(Transport transport, double requestsPerSecond, Arrivals arrivals, long seed) {
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Arrival rate must be positive, got " + requestsPerSecond);
+        }
+        this.transport = transport;
+        this.requestsPerSecond = requestsPerSecond;
+        this.arrivals = arrivals;
+        this.random = new Random(seed);
+    }
+
+    // Offsets from the start of the run at which each request is due, in nanoseconds
+    private long[] schedule(int numRequests) {
+        long[] offsets = new long[numRequests];
+        double meanGapNanos = 1_000_000_000.0 / requestsPerSecond;
+        double next = 0;
+        for (int i = 0; i < numRequests; i++) {
+            offsets[i] = (long) next;
+            // Poisson arrivals have exponentially distributed gaps with the same mean
+            next += arrivals == Arrivals.POISSON ? -Math.log(1.0 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+        return offsets;
+    }
+
+    public Result run(int numRequests, Api.RequestFactory requestFactory, Api.ResponseCheck responseCheck) {
+        long[] offsets = schedule(numRequests);
+        LatencyHistogram latencies = new LatencyHistogram();
+        LatencyHistogram serviceTimes = new LatencyHistogram();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        AtomicInteger rejectedSuccesses = new AtomicInteger();
+        AtomicReference<Throwable> firstRejectedSuccess = new AtomicReference<>();
+        AtomicLong lastCompletion = new AtomicLong();
+
+        long start = System.nanoTime();
+        long maxSendLag = 0;
+
+        // Closing the executor waits for every request that has been started
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < numRequests; i++) {
+                long intended = start + offsets[i];
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                maxSendLag = Math.max(maxSendLag, System.nanoTime() - intended);
+
+                int index = i;
+                ApiRequest request = requestFactory.create(index);
+                executor.execute(() -> {
+                    long sent = System.nanoTime();
+                    ApiResponse response = null;
+                    Throwable failure = null;
+                    try {
+                        response = transport.send(request.getMethod(), request.getEndpoint(), request.getBody());
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                    // Taken when the response arrives, the checks below are the client's time and not the server's
+                    long end = System.nanoTime();
+                    latencies.recordValue(end - intended);
+                    serviceTimes.recordValue(end - sent);
+                    lastCompletion.accumulateAndGet(end, Math::max);
+                    if (failure == null) {
+                        try {
+                            responseCheck.verify(index, response);
+                        } catch (Throwable t) {
+                            failure = t;
+                            if (response.getResponseCode() / 100 == 2) {
+                                rejectedSuccesses.incrementAndGet();
+                                firstRejectedSuccess.compareAndSet(null, new RuntimeException("Request " + request + " failed", t));
+                            }
+                        }
+                    }
+                    if (failure != null) {
+                        failures.incrementAndGet();
+                        firstFailure.compareAndSet(null, new RuntimeException("Request " + request + " failed", failure));
+                    }
+                });
+            }
+        }
+
+        return new Result(requestsPerSecond, arrivals, latencies, serviceTimes,
+                lastCompletion.get() - start, maxSendLag, failures.get(), firstFailure.get(),
+                rejectedSuccesses.get(), firstRejectedSuccess.get());
+    }
+
+    public static class Result {
+        private final double requestedRate;
+        private final Arrivals arrivals;
+        private final LatencyHistogram latencies;
+        private final LatencyHistogram serviceTimes;
+        private final long elapsedNanos;
+        private final long maxSendLagNanos;
+        private final int failures;
+        private final Throwable firstFailure;
+        private final int rejectedSuccesses;
+        private final Throwable firstRejectedSuccess;
+
+        Result(double requestedRate, Arrivals arrivals, LatencyHistogram latencies, LatencyHistogram serviceTimes,
+               long elapsedNanos, long maxSendLagNanos, int failures, Throwable firstFailure,
+               int rejectedSuccesses, Throwable firstRejectedSuccess) {
+            this.requestedRate = requestedRate;
+            this.arrivals = arrivals;
+            this.latencies = latencies;
+            this.serviceTimes = serviceTimes;
+            this.elapsedNanos = elapsedNanos;
+            this.maxSendLagNanos = maxSendLagNanos;
+            this.failures = failures;
+            this.firstFailure = firstFailure;
+            this.rejectedSuccesses = rejectedSuccesses;
+            this.firstRejectedSuccess = firstRejectedSuccess;
+        }
+
+        // Completed requests per second over the whole run, compare with the requested rate
+        public double getAchievedRate() {
+            return elapsedNanos <= 0 ? 0 : latencies.getCount() / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        // Measured from each request's intended send time
+        public LatencyHistogram getLatencies() { return latencies; }
+        // Measured from when each request was actually sent
+        public LatencyHistogram getServiceTimes() { return serviceTimes; }
+        public int getFailures() { return failures; }
+        public Throwable getFirstFailure() { return firstFailure; }
+        // Failures the server answered with a 2xx, the check rejected what it sent back rather than the load
+        public int getRejectedSuccesses() { return rejectedSuccesses; }
+        public Throwable getFirstRejectedSuccess() { return firstRejectedSuccess; }
+
+        public PerformanceMetrics toPerformanceMetrics() {
+            return new PerformanceMetrics()
+                    .put(REQUESTED_RATE_COLUMN, String.format("%.1f", requestedRate))
+                    .put(ARRIVALS_COLUMN, arrivals.name().toLowerCase())
+                    .put(NUM_REQUESTS_COLUMN, latencies.getCount())
+                    .put(ACHIEVED_RATE_COLUMN, String.format("%.1f", getAchievedRate()))
+                    .putAll(latencies.toPerformanceMetrics())
+                    .put(SERVICE_TIME_P99_COLUMN, String.format("%.3f", serviceTimes.getMillisAtPercentile(99)))
+                    .put(MAX_SEND_LAG_COLUMN, String.format("%.3f", maxSendLagNanos / 1_000_000.0))
+                    .put(ERRORS_COLUMN, failures);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package general;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import static general.CommonConstants.ERRORS_COLUMN;
+import static general.CommonConstants.GET_METHOD;
+import static general.CommonConstants.TODOS_ENDPOINT;
+
+// Runs the generator against a fake transport, so no server is started
+public class OpenLoopLoadGeneratorTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    // Answers one request at a time, like a single-threaded server, and stalls on the first one
+    private static class StallingTransport implements Transport {
+        private final long stallMillis;
+        private final int responseCode;
+        private final AtomicBoolean stalled = new AtomicBoolean();
+
+        StallingTransport(long stallMillis) {
+            this(stallMillis, 200);
+        }
+
+        StallingTransport(long stallMillis, int responseCode) {
+            this.stallMillis = stallMillis;
+            this.responseCode = responseCode;
+        }
+
+        @Override
+        public synchronized ApiResponse send(String method, String endpoint, String body) throws Exception {
+            if (stalled.compareAndSet(false, true)) {
+                Thread.sleep(stallMillis);
+            }
+            return new ApiResponse(responseCode, "", "{}");
+        }
+
+        @Override
+        public <T> T stream(String endpoint, BodyReader<T> reader) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getName() {
+            return "stalling";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static OpenLoopLoadGenerator.Result run(Transport transport, int numRequests, Api.ResponseCheck check) {
+        // 100 requests per second, so one is due every 10 ms
+        return new OpenLoopLoadGenerator(transport, 100, OpenLoopLoadGenerator.Arrivals.CONSTANT, 1)
+                .run(numRequests, i -> new ApiRequest(GET_METHOD, TODOS_ENDPOINT, null), check);
+    }
+
+    @Test
+    public void requestsQueuedBehindStallCountTheirWait() {
+        // Every request is due within the 300 ms stall, so all of them wait on it
+        OpenLoopLoadGenerator.Result result = run(new StallingTransport(300), 20, (i, response) -> { });
+
+        assertEquals(20, result.getLatencies().getCount());
+        assertEquals(0, result.getFailures());
+        // Request i is due at 10i ms and answered just after 300 ms. A closed loop would record one slow request
+        // and 19 fast ones, measured from the intended time the median request has waited about 200 ms
+        assertTrue(result.getLatencies().getMillisAtPercentile(50) > 100);
+        assertTrue(result.getLatencies().getMaxNanos() >= 300 * MILLIS);
+    }
+
+    @Test
+    public void latencyIsNeverShorterThanServiceTime() {
+        OpenLoopLoadGenerator.Result result = run(new StallingTransport(100), 10, (i, response) -> { });
+
+        assertTrue(result.getLatencies().getMaxNanos() >= result.getServiceTimes().getMaxNanos());
+        assertTrue(result.getLatencies().getValueAtPercentile(50) >= result.getServiceTimes().getValueAtPercentile(50));
+    }
+
+    @Test
+    public void failedChecksAreCountedNotThrown() {
+        OpenLoopLoadGenerator.Result result = run(new StallingTransport(0), 10, (i, response) -> {
+            if (i % 2 == 0) {
+                throw new AssertionError("Rejected request " + i);
+            }
+        });
+
+        assertEquals(10, result.getLatencies().getCount());
+        assertEquals(5, result.getFailures());
+        assertNotNull(result.getFirstFailure());
+        // The server answered 200 every time, so every failure is the check rejecting a success
+        assertEquals(5, result.getRejectedSuccesses());
+        assertNotNull(result.getFirstRejectedSuccess());
+    }
+
+    @Test
+    public void refusedRequestsAreNotRejectedSuccesses() {
+        OpenLoopLoadGenerator.Result result = run(new StallingTransport(0, 503), 10, (i, response) -> {
+            if (response.getResponseCode() != 200) {
+                throw new AssertionError("Expected 200 but got " + response.getResponseCode());
+            }
+        });
+
+        assertEquals(10, result.getFailures());
+        assertEquals(0, result.getRejectedSuccesses());
+        assertEquals("10", result.toPerformanceMetrics().get(ERRORS_COLUMN));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveRate() {
+        new OpenLoopLoadGenerator(new StallingTransport(0), 0, OpenLoopLoadGenerator.Arrivals.POISSON, 1);
+    }
+}
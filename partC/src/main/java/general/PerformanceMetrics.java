@@ -0,0 +1,60 @@
+package general;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// One row of a results CSV: column name -> formatted value, in the order the columns were added
+public class PerformanceMetrics {
+    private final Map<String, String> columns = new LinkedHashMap<>();
+    // Per-request latencies behind the row, saved alongside the CSV under histogramLabel
+    private String histogramLabel;
+    private LatencyHistogram histogram;
+
+    public PerformanceMetrics put(String column, Object value) {
+        columns.put(column, String.valueOf(value));
+        return this;
+    }
+
+    public PerformanceMetrics putAll(PerformanceMetrics other) {
+        columns.putAll(other.columns);
+        if (other.histogram != null) {
+            withHistogram(other.histogramLabel, other.histogram);
+        }
+        return this;
+    }
+
+    public PerformanceMetrics withHistogram(String label, LatencyHistogram histogram) {
+        this.histogramLabel = label;
+        this.histogram = histogram;
+        return this;
+    }
+
+    public String getHistogramLabel() {
+        return histogramLabel;
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public String get(String column) {
+        return columns.getOrDefault(column, "");
+    }
+
+    public Set<String> getColumns() {
+        return columns.keySet();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        columns.forEach((column, value) -> {
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(column).append(" = ").append(value);
+        });
+        return description.toString();
+    }
+}
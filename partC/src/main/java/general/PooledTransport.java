@@ -0,0 +1,115 @@
+package general;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import static general.CommonConstants.JSON_FORMAT;
+import static general.CommonConstants.POOLED_TRANSPORT;
+
+// Keep-alive transport: one shared Apache HttpClient over a bounded pool of persistent connections
+public class PooledTransport implements Transport {
+    private final String baseUrl;
+    private final int poolSize;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    // Callers queue here rather than inside the pool, whose lease wait pins virtual threads to their carrier
+    private final Semaphore leases;
+
+    public PooledTransport(String baseUrl, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1, got " + poolSize);
+        }
+        this.baseUrl = baseUrl;
+        this.poolSize = poolSize;
+
+        // Every request goes to the same host, so the per-route limit is the whole pool
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(poolSize);
+        connectionManager.setDefaultMaxPerRoute(poolSize);
+        connectionManager.setValidateAfterInactivity(1000);
+
+        this.leases = new Semaphore(poolSize, true);
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableCookieManagement()
+                .build();
+    }
+
+    @Override
+    public ApiResponse send(String method, String endpoint, String body) throws Exception {
+        RequestBuilder builder = RequestBuilder.create(method)
+                .setUri(baseUrl + endpoint)
+                .setHeader("Accept", JSON_FORMAT);
+
+        // Only requests that carry a body get one, so DELETE is sent without Content-Length
+        if (body != null && !body.isEmpty()) {
+            builder.setEntity(new StringEntity(body, StandardCharsets.UTF_8));
+            builder.setHeader("Content-Type", JSON_FORMAT);
+        }
+
+        leases.acquire();
+        try (CloseableHttpResponse response = httpClient.execute(builder.build())) {
+            HttpEntity entity = response.getEntity();
+            // Reading the entity to the end hands the connection back to the pool for reuse
+            String responseBody = entity == null ? "" : EntityUtils.toString(entity, StandardCharsets.UTF_8);
+
+            return new ApiResponse(response.getStatusLine().getStatusCode(),
+                    response.getStatusLine().getReasonPhrase(), responseBody);
+        } finally {
+            leases.release();
+        }
+    }
+
+    // Holds one of the pool's connections until reader returns
+    @Override
+    public <T> T stream(String endpoint, BodyReader<T> reader) throws Exception {
+        HttpUriRequest request = RequestBuilder.get(baseUrl + endpoint)
+                .setHeader("Accept", JSON_FORMAT)
+                .build();
+
+        leases.acquire();
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            try (InputStream body = entity == null ? InputStream.nullInputStream() : entity.getContent()) {
+                return reader.read(response.getStatusLine().getStatusCode(), body);
+            } finally {
+                // Whatever the reader left unread is drained, so the connection goes back to the pool
+                EntityUtils.consume(entity);
+            }
+        } finally {
+            leases.release();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public String getName() {
+        return POOLED_TRANSPORT + "(" + poolSize + ")";
+    }
+
+    @Override
+    public void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close pooled transport: " + e.getMessage());
+        }
+        connectionManager.shutdown();
+    }
+}
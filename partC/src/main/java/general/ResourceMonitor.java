@@ -1,108 +1,122 @@
 package general;
 
 import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
-import java.lang.management.OperatingSystemMXBean;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-public class ResourceMonitor implements Runnable {
-    private final AtomicBoolean running = new AtomicBoolean(true);
-    private final List<Double> cpuUsages = new ArrayList<>();
-    private final List<Double> memoryUsages = new ArrayList<>();
-    
-    private final OperatingSystemMXBean osBean;
-    private final MemoryMXBean memoryBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static general.CommonConstants.DEFAULT_MONITOR_INTERVAL_MS;
+import static general.CommonConstants.MONITOR_INTERVAL_PROPERTY;
+
+// Samples the test JVM's CPU and free heap at a fixed rate on its own scheduler thread.
+// CPU comes from process CPU time deltas, so a sample costs microseconds instead of sleeping to let a load average settle.
+// Each series keeps streaming min/max/mean and percentiles, so no sample is stored
+public class ResourceMonitor {
+
     private final com.sun.management.OperatingSystemMXBean sunOsBean;
+    private final int processors;
+    private final long intervalMillis;
+    private ScheduledExecutorService scheduler;
+
+    private final SampleSeries cpuUsages = new SampleSeries();
+    private final SampleSeries memoryUsages = new SampleSeries();
+
+    // CPU time and wall time at the previous sample
+    private long lastCpuTime;
+    private long lastSampleTime;
+
     // Initial usages
     private double initialCpuUsage = 0.0;
     private double initialMemoryUsage = 0.0;
 
     public ResourceMonitor() {
-        this.osBean = ManagementFactory.getOperatingSystemMXBean();
-        this.memoryBean = ManagementFactory.getMemoryMXBean();
-        this.sunOsBean = (com.sun.management.OperatingSystemMXBean) osBean;
-    }
-    public void stop() {
-        running.set(false);
+        this(Long.getLong(MONITOR_INTERVAL_PROPERTY, DEFAULT_MONITOR_INTERVAL_MS));
     }
 
-    public String getAverageCpu() {
-        return calculateAverage(cpuUsages, initialCpuUsage);
-    }
-
-    public String getAverageMemory() {
-        if (memoryUsages.isEmpty()) {
-            return "0.00";
+    public ResourceMonitor(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Sampling interval must be at least 1 ms, got " + intervalMillis);
         }
-        double sum = 0.0;
-        for (Double usage : memoryUsages) {
-            sum += usage;
-        }
-        return String.format("%.2f", sum / memoryUsages.size());
-    }
-
-    public double getInitialCpuUsage() {
-        return initialCpuUsage;
+        this.sunOsBean = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        this.processors = Runtime.getRuntime().availableProcessors();
+        this.intervalMillis = intervalMillis;
     }
 
-    public double getInitialMemoryUsage() {
-        return initialMemoryUsage;
+    // Starts sampling at a fixed rate, the first sample is taken one interval after the baseline
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Resource monitor already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "resource-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
     }
 
-    public void captureNewBaseline() {
+    // Stops sampling and takes one last sample, so even an operation shorter than the interval is covered
+    public void stop() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+        }
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
         try {
-            // Force garbage collection to minimize memory noise
-            forceGarbageCollection();
-
-            // Take multiple samples and average for more stable baseline
-            double cpuSum = 0;
-            double memSum = 0;
-            int samples = 5; // Fewer samples for faster response
-            
-            for (int i = 0; i < samples; i++) {
-                cpuSum += getCurrentCpuUsage();
-//                memSum += getCurrentMemoryUsage();
-                memSum += getCurrentFreeMemory();
-                if (i < samples - 1) Thread.sleep(10); // Small delay between samples
-            }
-            
-            initialCpuUsage = cpuSum / samples;
-            initialMemoryUsage = memSum / samples;
-            
-            System.out.println("Baseline - CPU: " + String.format("%.2f", initialCpuUsage) + "%, Free Memory: " + String.format("%.2f", initialMemoryUsage) + " MB");
-        } catch (Exception e) {
-            System.err.println("Failed to capture baseline: " + e.getMessage());
-            initialCpuUsage = 0.0;
-            initialMemoryUsage = 0.0;
+            running.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        sample();
     }
 
+    public void captureNewBaseline() {
+        // Force garbage collection to minimize memory noise
+        forceGarbageCollection();
+
+        synchronized (this) {
+            cpuUsages.clear();
+            memoryUsages.clear();
+            lastCpuTime = sunOsBean.getProcessCpuTime();
+            lastSampleTime = System.nanoTime();
+        }
 
-    private double getCurrentCpuUsage() {
-        com.sun.management.OperatingSystemMXBean os =
-                (com.sun.management.OperatingSystemMXBean)
-                        ManagementFactory.getOperatingSystemMXBean();
-
-        os.getProcessCpuLoad(); // warm-up
-
+        // One interval of idle sampling gives the baseline, then the series start empty again
         try {
-            Thread.sleep(200);
+            Thread.sleep(intervalMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        sample();
 
-        double load = os.getProcessCpuLoad();
-        if (load < 0) load = 0;
+        synchronized (this) {
+            initialCpuUsage = cpuUsages.getMean();
+            initialMemoryUsage = memoryUsages.getMean();
+            cpuUsages.clear();
+            memoryUsages.clear();
+        }
 
-        return load * 100.0;
+        System.out.println("Baseline - CPU: " + String.format("%.2f", initialCpuUsage) + "%, Free Memory: " + String.format("%.2f", initialMemoryUsage) + " MB");
     }
 
-    private double getCurrentMemoryUsage() {
-        // Heap memory usage in MB
-        long usedMemory = memoryBean.getHeapMemoryUsage().getUsed();
-        return usedMemory / (1024.0 * 1024.0);
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        long cpuTime = sunOsBean.getProcessCpuTime();
+        long elapsed = now - lastSampleTime;
+        if (elapsed <= 0 || cpuTime < 0) {
+            return;
+        }
+
+        // Share of all processors, the same scale getProcessCpuLoad() reported
+        double cpuUsage = Math.min(100.0, (cpuTime - lastCpuTime) * 100.0 / (elapsed * (double) processors));
+        cpuUsages.add(cpuUsage);
+        memoryUsages.add(getCurrentFreeMemory());
+
+        lastCpuTime = cpuTime;
+        lastSampleTime = now;
     }
 
     private double getCurrentFreeMemory() {
@@ -111,37 +125,38 @@ public class ResourceMonitor implements Runnable {
         return freeMemory / (1024.0 * 1024.0); // MB
     }
 
-    private String calculateAverage(List<Double> usages, double initialUsage) {
-        if (usages.isEmpty()) {
-            return "0.00";
-        }
-        double sum = 0.0;
-        for (Double usage : usages) {
-            sum += usage;
-        }
-        double average = sum / usages.size();
-        return String.format("%.2f", average - initialUsage);
-    }
-
-    @Override
-    public void run() {
-
-        while (running.get()) {
-            try {
-                double currentCpu = getCurrentCpuUsage();
-//                double currentMemory = getCurrentMemoryUsage();
-                double currentFreeMemory = getCurrentFreeMemory();
-                
-                cpuUsages.add(currentCpu);
-//                memoryUsages.add(currentMemory);
-                memoryUsages.add(currentFreeMemory);
-
-                Thread.sleep(50); // Sample every 50 milliseconds for better granularity
-            } catch (Exception e) {
-                // Ignore the sample if failure
-                System.err.println("Error during monitoring: " + e.getMessage());
-            }
-        }
+    public synchronized String getAverageCpu() {
+        return String.format("%.2f", cpuUsages.getCount() == 0 ? 0.0 : cpuUsages.getMean() - initialCpuUsage);
+    }
+
+    public synchronized String getAverageMemory() {
+        return String.format("%.2f", memoryUsages.getMean());
+    }
+
+    public synchronized String getPeakCpu() {
+        return String.format("%.2f", cpuUsages.getMax());
+    }
+
+    public synchronized long getSampleCount() {
+        return cpuUsages.getCount();
+    }
+
+    // CPU above the baseline that the given percentage of samples stayed at or under
+    public synchronized String getCpuPercentile(double percentile) {
+        return String.format("%.2f", cpuUsages.getCount() == 0 ? 0.0 : cpuUsages.getPercentile(percentile) - initialCpuUsage);
+    }
+
+    // Free memory, so the low percentiles are the ones close to running out
+    public synchronized String getMemoryPercentile(double percentile) {
+        return String.format("%.2f", memoryUsages.getPercentile(percentile));
+    }
+
+    public double getInitialCpuUsage() {
+        return initialCpuUsage;
+    }
+
+    public double getInitialMemoryUsage() {
+        return initialMemoryUsage;
     }
 
     public void forceGarbageCollection() {
@@ -152,4 +167,42 @@ public class ResourceMonitor implements Runnable {
             Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+
+    // Streaming statistics of a series: min/max/mean exactly, and percentiles from a LatencyHistogram holding the
+    // values in thousandths, which keeps them to better than 0.1% in fixed memory however long the run
+    static class SampleSeries {
+        private static final double SCALE = 1000.0;
+
+        private LatencyHistogram histogram = new LatencyHistogram();
+        private long count;
+        private double sum;
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+
+        void add(double value) {
+            histogram.recordValue(Math.round(value * SCALE));
+            count++;
+            sum += value;
+            min = count == 1 ? value : Math.min(min, value);
+            max = count == 1 ? value : Math.max(max, value);
+        }
+
+        void clear() {
+            histogram = new LatencyHistogram();
+            count = 0;
+            sum = 0;
+            min = Double.NaN;
+            max = Double.NaN;
+        }
+
+        long getCount() { return count; }
+        double getMean() { return count == 0 ? 0.0 : sum / count; }
+        double getMin() { return count == 0 ? 0.0 : min; }
+        double getMax() { return count == 0 ? 0.0 : max; }
+
+        // Nearest-rank percentile over every sample added
+        double getPercentile(double percentile) {
+            return count == 0 ? 0.0 : histogram.getValueAtPercentile(percentile) / SCALE;
+        }
+    }
+}
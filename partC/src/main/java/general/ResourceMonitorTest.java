@@ -0,0 +1,43 @@
+package general;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+// The streaming statistics only, no sampler thread is started
+public class ResourceMonitorTest {
+
+    @Test
+    public void seriesTracksExtremesMeanAndPercentiles() {
+        ResourceMonitor.SampleSeries series = new ResourceMonitor.SampleSeries();
+        for (int i = 1; i <= 100; i++) {
+            series.add(i / 10.0);
+        }
+
+        assertEquals(100, series.getCount());
+        assertEquals(0.1, series.getMin(), 0);
+        assertEquals(10.0, series.getMax(), 0);
+        assertEquals(5.05, series.getMean(), 1e-9);
+        assertEquals(5.0, series.getPercentile(50), 0.01);
+        assertEquals(9.9, series.getPercentile(99), 0.01);
+    }
+
+    @Test
+    public void emptyAndClearedSeriesReportZero() {
+        ResourceMonitor.SampleSeries series = new ResourceMonitor.SampleSeries();
+        assertEquals(0.0, series.getMin(), 0);
+        assertEquals(0.0, series.getPercentile(99), 0);
+
+        series.add(42.0);
+        series.clear();
+
+        assertEquals(0, series.getCount());
+        assertEquals(0.0, series.getMax(), 0);
+        assertEquals(0.0, series.getMean(), 0);
+        assertEquals(0.0, series.getPercentile(50), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSubMillisecondInterval() {
+        new ResourceMonitor(0);
+    }
+}
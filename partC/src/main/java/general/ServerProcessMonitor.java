@@ -0,0 +1,210 @@
+package general;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static general.CommonConstants.SERVER_CONTEXT_SWITCHES_COLUMN;
+import static general.CommonConstants.SERVER_CPU_USAGE_COLUMN;
+import static general.CommonConstants.SERVER_DISK_READ_COLUMN;
+import static general.CommonConstants.SERVER_DISK_WRITE_COLUMN;
+import static general.CommonConstants.SERVER_PEAK_RSS_COLUMN;
+import static general.CommonConstants.SERVER_RSS_COLUMN;
+import static general.CommonConstants.SERVER_THREADS_COLUMN;
+
+// Samples the server process from /proc/<pid> on Linux, so its CPU, memory, threads and I/O are reported
+// next to the test JVM's own numbers from ResourceMonitor. Sampled at a fixed rate on its own scheduler thread, like
+// ResourceMonitor. On other systems every column reads N/A
+public class ServerProcessMonitor {
+    private static final String NOT_AVAILABLE = "N/A";
+    // Every thread in task/ is read, so sample less often than ResourceMonitor
+    private static final long SAMPLE_INTERVAL_MS = 50;
+    // Fixed for the life of the kernel, so read once rather than for every measurement
+    private static final long CLOCK_TICKS_PER_SECOND = readClockTicksPerSecond();
+
+    private final Path procDirectory;
+    private ScheduledExecutorService scheduler;
+
+    // Counters at the baseline and at the latest sample, the reported values are the difference
+    private Snapshot baseline;
+    private Snapshot latest;
+    private long rssSampleSum;
+    private int rssSamples;
+    private long peakRssKb;
+    private int peakThreads;
+
+    public ServerProcessMonitor(long pid) {
+        this.procDirectory = Paths.get("/proc", String.valueOf(pid));
+    }
+
+    // Starts sampling at a fixed rate, from the baseline captured before
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Server process monitor already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "server-process-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::recordSample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Stops sampling and takes one last sample, so the counters cover the whole measured operation
+    public void stop() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = scheduler;
+        }
+        if (running == null) {
+            return;
+        }
+        running.shutdown();
+        try {
+            running.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        recordSample();
+    }
+
+    public synchronized void captureNewBaseline() {
+        baseline = sample();
+        latest = baseline;
+        rssSampleSum = 0;
+        rssSamples = 0;
+        peakRssKb = 0;
+        peakThreads = 0;
+        if (baseline != null) {
+            record(baseline);
+        }
+    }
+
+    private void recordSample() {
+        Snapshot snapshot = sample();
+        if (snapshot != null) {
+            synchronized (this) {
+                if (baseline != null) {
+                    latest = snapshot;
+                    record(snapshot);
+                }
+            }
+        }
+    }
+
+    private void record(Snapshot snapshot) {
+        rssSampleSum += snapshot.rssKb;
+        rssSamples++;
+        peakRssKb = Math.max(peakRssKb, snapshot.rssKb);
+        peakThreads = Math.max(peakThreads, snapshot.threads);
+    }
+
+    public synchronized PerformanceMetrics toPerformanceMetrics() {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        if (baseline == null || latest == null) {
+            return metrics.put(SERVER_CPU_USAGE_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_RSS_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_PEAK_RSS_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_THREADS_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_CONTEXT_SWITCHES_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_DISK_READ_COLUMN, NOT_AVAILABLE)
+                    .put(SERVER_DISK_WRITE_COLUMN, NOT_AVAILABLE);
+        }
+
+        // CPU time as a percentage of one core, like top, so a busy multi-threaded server can exceed 100
+        double seconds = Math.max(latest.nanoTime - baseline.nanoTime, 1) / 1_000_000_000.0;
+        double cpuSeconds = (double) (latest.cpuTicks - baseline.cpuTicks) / CLOCK_TICKS_PER_SECOND;
+
+        return metrics.put(SERVER_CPU_USAGE_COLUMN, String.format("%.2f", cpuSeconds / seconds * 100.0))
+                .put(SERVER_RSS_COLUMN, String.format("%.2f", rssSampleSum / (double) rssSamples / 1024.0))
+                .put(SERVER_PEAK_RSS_COLUMN, String.format("%.2f", peakRssKb / 1024.0))
+                .put(SERVER_THREADS_COLUMN, peakThreads)
+                // Threads that exit take their counts with them, which can only make this an underestimate
+                .put(SERVER_CONTEXT_SWITCHES_COLUMN, Math.max(0, latest.contextSwitches - baseline.contextSwitches))
+                .put(SERVER_DISK_READ_COLUMN, latest.readBytes < 0 ? NOT_AVAILABLE : String.format("%.2f", (latest.readBytes - baseline.readBytes) / 1024.0))
+                .put(SERVER_DISK_WRITE_COLUMN, latest.writeBytes < 0 ? NOT_AVAILABLE : String.format("%.2f", (latest.writeBytes - baseline.writeBytes) / 1024.0));
+    }
+
+    // Null once the process has gone away
+    private Snapshot sample() {
+        try {
+            Snapshot snapshot = new Snapshot();
+            snapshot.nanoTime = System.nanoTime();
+
+            // The command name in field 2 may contain spaces, so count fields from the closing parenthesis;
+            // utime and stime are fields 14 and 15 of the file
+            String stat = Files.readString(procDirectory.resolve("stat"));
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).trim().split("\\s+");
+            snapshot.cpuTicks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+
+            for (String line : Files.readAllLines(procDirectory.resolve("status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    snapshot.rssKb = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+
+            // status only counts the main thread's context switches, so add up every thread in task/
+            try (DirectoryStream<Path> tasks = Files.newDirectoryStream(procDirectory.resolve("task"))) {
+                for (Path task : tasks) {
+                    try {
+                        for (String line : Files.readAllLines(task.resolve("status"))) {
+                            if (line.startsWith("voluntary_ctxt_switches:") || line.startsWith("nonvoluntary_ctxt_switches:")) {
+                                snapshot.contextSwitches += Long.parseLong(line.replaceAll("[^0-9]", ""));
+                            }
+                        }
+                        snapshot.threads++;
+                    } catch (IOException e) {
+                        // The thread exited between listing and reading
+                    }
+                }
+            }
+
+            // io can be unreadable depending on ptrace permissions, the other columns are still worth having
+            snapshot.readBytes = -1;
+            snapshot.writeBytes = -1;
+            try {
+                for (String line : Files.readAllLines(procDirectory.resolve("io"))) {
+                    if (line.startsWith("read_bytes:")) {
+                        snapshot.readBytes = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                    } else if (line.startsWith("write_bytes:")) {
+                        snapshot.writeBytes = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                    }
+                }
+            } catch (IOException e) {
+                // Leave disk I/O as unavailable
+            }
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static long readClockTicksPerSecond() {
+        try {
+            Process getconf = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+            List<String> output = new String(getconf.getInputStream().readAllBytes()).lines().toList();
+            if (getconf.waitFor() == 0 && !output.isEmpty()) {
+                return Long.parseLong(output.get(0).trim());
+            }
+        } catch (Exception e) {
+            // Fall back to the value every mainstream Linux kernel uses
+        }
+        return 100;
+    }
+
+    private static class Snapshot {
+        long nanoTime;
+        long cpuTicks;
+        long rssKb;
+        int threads;
+        long contextSwitches;
+        long readBytes;
+        long writeBytes;
+    }
+}
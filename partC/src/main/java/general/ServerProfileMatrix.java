@@ -0,0 +1,73 @@
+package general;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import server.ServerLaunchProfile;
+
+import static general.CommonConstants.DEFAULT_SERVER_PROFILES;
+import static general.CommonConstants.PROFILES_DIRECTORY;
+import static general.CommonConstants.RESULTS_DIR_PROPERTY;
+import static general.CommonConstants.SERVER_PROFILES_PROPERTY;
+
+// Runs the CRUD performance suite once per server launch profile, each profile's CSVs land in results/profiles/<name>/
+// and a summary of the runs in results/profiles/matrix.csv. Pass test class names as arguments to run only those
+public class ServerProfileMatrix {
+
+    public static void main(String[] args) throws Exception {
+        List<ServerLaunchProfile> profiles = new ArrayList<>();
+        for (String spec : System.getProperty(SERVER_PROFILES_PROPERTY, DEFAULT_SERVER_PROFILES).split(";")) {
+            if (!spec.isBlank()) {
+                profiles.add(ServerLaunchProfile.parse(spec));
+            }
+        }
+
+        Class<?>[] testClasses = args.length == 0 ? new Class<?>[] { AllApiTests.class } : new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            testClasses[i] = Class.forName(args[i]);
+        }
+
+        Path resultsDirectory = Paths.get(System.getProperty(RESULTS_DIR_PROPERTY, Paths.get(System.getProperty("user.dir"), "results").toString()));
+        Path summaryPath = resultsDirectory.resolve(PROFILES_DIRECTORY).resolve("matrix.csv");
+        Files.createDirectories(summaryPath.getParent());
+
+        boolean allPassed = true;
+        try (PrintWriter summary = new PrintWriter(new FileWriter(summaryPath.toString()))) {
+            summary.println("Profile,JVM Arguments,Tests Run,Failures,Time Taken (ms)");
+
+            for (ServerLaunchProfile profile : profiles) {
+                System.out.println("\n======================= Server launch profile " + profile);
+                profile.applyToSystemProperties();
+
+                Result result = JUnitCore.runClasses(testClasses);
+                for (Failure failure : result.getFailures()) {
+                    System.err.println("[" + profile.getName() + "] " + failure.getTestHeader() + ": " + failure.getMessage());
+                }
+                allPassed &= result.wasSuccessful();
+
+                summary.println(profile.getName() + "," + String.join(" ", profile.getJvmArgs()) + ","
+                        + result.getRunCount() + "," + result.getFailureCount() + "," + result.getRunTime());
+                summary.flush();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing profile matrix summary", e);
+        } finally {
+            ServerLaunchProfile.defaults().applyToSystemProperties();
+        }
+
+        System.out.println("\nProfiles run: " + Arrays.toString(profiles.stream().map(ServerLaunchProfile::getName).toArray()));
+        System.out.println("Summary saved to " + summaryPath);
+        System.exit(allPassed ? 0 : 1);
+    }
+}
@@ -0,0 +1,44 @@
+package general;
+
+import java.io.InputStream;
+
+import static general.CommonConstants.DEFAULT_POOL_SIZE;
+import static general.CommonConstants.LEGACY_TRANSPORT;
+import static general.CommonConstants.POOLED_TRANSPORT;
+import static general.CommonConstants.POOL_SIZE_PROPERTY;
+import static general.CommonConstants.TRANSPORT_PROPERTY;
+
+// Sends a single request to the Todo Manager and returns the fully drained response
+public interface Transport extends AutoCloseable {
+
+    ApiResponse send(String method, String endpoint, String body) throws Exception;
+
+    // Receives a response body while it is still arriving, the stream is closed once read() returns
+    interface BodyReader<T> {
+        T read(int responseCode, InputStream body) throws Exception;
+    }
+
+    // Sends a GET and hands its body to reader straight from the connection, without draining it into a String first
+    <T> T stream(String endpoint, BodyReader<T> reader) throws Exception;
+
+    // Short name written to the console and results so runs can be told apart
+    String getName();
+
+    @Override
+    void close();
+
+    // Select the transport with -Dtransport=pooled|legacy and -Dtransport.poolSize=N
+    static Transport fromSystemProperties(String baseUrl) {
+        String mode = System.getProperty(TRANSPORT_PROPERTY, POOLED_TRANSPORT);
+
+        if (mode.equalsIgnoreCase(LEGACY_TRANSPORT)) {
+            return new LegacyTransport(baseUrl);
+        }
+        if (mode.equalsIgnoreCase(POOLED_TRANSPORT)) {
+            int poolSize = Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE);
+            return new PooledTransport(baseUrl, poolSize);
+        }
+        throw new IllegalArgumentException("Unknown transport '" + mode + "', expected '"
+                + POOLED_TRANSPORT + "' or '" + LEGACY_TRANSPORT + "'");
+    }
+}
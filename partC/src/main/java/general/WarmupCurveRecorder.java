@@ -0,0 +1,188 @@
+package general;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import graph.PlotGraph;
+
+import static general.CommonConstants.DEFAULT_WARMUP_REQUESTS;
+import static general.CommonConstants.DEFAULT_WARMUP_TOLERANCE;
+import static general.CommonConstants.DEFAULT_WARMUP_WINDOW;
+import static general.CommonConstants.DELETE_METHOD;
+import static general.CommonConstants.FIRST_REQUEST_COLUMN;
+import static general.CommonConstants.OPERATION_COLUMN;
+import static general.CommonConstants.POST_METHOD;
+import static general.CommonConstants.PUT_METHOD;
+import static general.CommonConstants.REQUESTS_COLUMN;
+import static general.CommonConstants.REQUESTS_TO_STEADY_STATE_COLUMN;
+import static general.CommonConstants.REQUEST_INDEX_COLUMN;
+import static general.CommonConstants.ROLLING_P50_SUFFIX;
+import static general.CommonConstants.STEADY_P50_COLUMN;
+import static general.CommonConstants.TODOS_ENDPOINT;
+import static general.CommonConstants.WARMUP_REQUESTS_PROPERTY;
+import static general.CommonConstants.WARMUP_TOLERANCE_PROPERTY;
+import static general.CommonConstants.WARMUP_WINDOW_PROPERTY;
+
+// Sends a long stream of identical create/update/delete cycles to a fresh server, one at a time, and keeps the
+// latency of every request by its index. The rolling p50 shows the JIT warming the server up, and the point where
+// it settles is reported as requests to steady state. Writes warmupRequests.csv (every request),
+// warmupCurve.csv (the rolling p50s), warmupSteadyState.csv (one row per operation) and warmupCurve.png
+public class WarmupCurveRecorder extends Api {
+    private static final String[] OPERATIONS = { "create", "update", "delete" };
+
+    private final int requests = Integer.getInteger(WARMUP_REQUESTS_PROPERTY, DEFAULT_WARMUP_REQUESTS);
+    private final int window = Math.max(1, Integer.getInteger(WARMUP_WINDOW_PROPERTY, DEFAULT_WARMUP_WINDOW));
+    private final double tolerance = Double.parseDouble(System.getProperty(WARMUP_TOLERANCE_PROPERTY, String.valueOf(DEFAULT_WARMUP_TOLERANCE)));
+
+    public static void main(String[] args) throws Exception {
+        new WarmupCurveRecorder().record();
+    }
+
+    public void record() throws Exception {
+        if (requests < window) {
+            throw new IllegalArgumentException(WARMUP_REQUESTS_PROPERTY + " must be at least " + WARMUP_WINDOW_PROPERTY + " (" + window + ")");
+        }
+        System.out.println("\n----------------------Warm-up curve: " + requests + " create/update/delete cycles, rolling p50 over "
+                + window + " requests");
+
+        // latencies[operation][request index] in nanoseconds
+        long[][] latencies = new long[OPERATIONS.length][requests];
+        String create = toJson(Map.of("title", "warm-up", "doneStatus", false, "description", "same every time"));
+        String update = toJson(Map.of("title", "warm-up", "doneStatus", true, "description", "same every time"));
+
+        startServer();
+        try {
+            for (int i = 0; i < requests; i++) {
+                long start = System.nanoTime();
+                ApiResponse created = request(TODOS_ENDPOINT, POST_METHOD, create);
+                latencies[0][i] = System.nanoTime() - start;
+                expectStatus(201, created);
+                String id = ResponseReader.readId(created.getBody());
+
+                start = System.nanoTime();
+                ApiResponse updated = requestWithId(TODOS_ENDPOINT, PUT_METHOD, id, update);
+                latencies[1][i] = System.nanoTime() - start;
+                expectStatus(200, updated);
+
+                start = System.nanoTime();
+                ApiResponse deleted = requestWithId(TODOS_ENDPOINT, DELETE_METHOD, id, null);
+                latencies[2][i] = System.nanoTime() - start;
+                expectStatus(200, deleted);
+            }
+        } finally {
+            stopServer();
+        }
+
+        // A point every tenth of a window is smooth enough to plot without the file growing with every request
+        int step = Math.max(1, window / 10);
+        int points = (requests - window) / step + 1;
+        int[] windowEnds = new int[points];
+        double[][] rollingP50 = new double[OPERATIONS.length][points];
+        for (int point = 0; point < points; point++) {
+            windowEnds[point] = window + point * step;
+        }
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            for (int point = 0; point < points; point++) {
+                rollingP50[operation][point] = median(latencies[operation], windowEnds[point] - window, windowEnds[point]) / 1_000_000.0;
+            }
+        }
+
+        List<PerformanceMetrics> summary = new ArrayList<>();
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            double steadyP50 = getSteadyP50(rollingP50[operation]);
+            int steadyAt = getRequestsToSteadyState(rollingP50[operation], windowEnds, steadyP50, tolerance);
+            if (steadyAt < 0 || steadyAt > requests * 3 / 4) {
+                System.out.println("The " + OPERATIONS[operation] + " p50 only settles near the end of the run, raise " + WARMUP_REQUESTS_PROPERTY);
+            }
+
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long latency : latencies[operation]) {
+                histogram.recordValue(latency);
+            }
+            summary.add(new PerformanceMetrics()
+                    .put(OPERATION_COLUMN, OPERATIONS[operation])
+                    .put(REQUESTS_COLUMN, requests)
+                    .put(REQUESTS_TO_STEADY_STATE_COLUMN, steadyAt < 0 ? "N/A" : String.valueOf(steadyAt))
+                    .put(FIRST_REQUEST_COLUMN, String.format("%.3f", latencies[operation][0] / 1_000_000.0))
+                    .put(STEADY_P50_COLUMN, String.format("%.3f", steadyP50))
+                    .putAll(histogram.toPerformanceMetrics())
+                    .withHistogram(OPERATIONS[operation], histogram));
+        }
+
+        Path resultsDirectory = getResultsDirectory();
+        writeRequests(resultsDirectory.resolve("warmupRequests.csv"), latencies);
+        String curvePath = resultsDirectory.resolve("warmupCurve.csv").toString();
+        writeCurve(Path.of(curvePath), windowEnds, rollingP50);
+        savePerformanceMetricsToCSV(resultsDirectory.resolve("warmupSteadyState.csv").toString(), summary);
+        new PlotGraph().plotWarmupCurve(curvePath, resultsDirectory.resolve("warmupCurve.png").toString());
+
+        System.out.println("\nSaved warm-up curve----------------------\n");
+    }
+
+    // The p50 the run settles at, the median of the rolling p50s over its last quarter
+    static double getSteadyP50(double[] rollingP50) {
+        double[] tail = Arrays.copyOfRange(rollingP50, rollingP50.length * 3 / 4, rollingP50.length);
+        Arrays.sort(tail);
+        return tail[tail.length / 2];
+    }
+
+    // Requests sent when the rolling p50 last came down to within tolerance of the steady p50 and stayed there,
+    // -1 if the last window is still above it. Only slow windows count, warming up never makes a request slower
+    static int getRequestsToSteadyState(double[] rollingP50, int[] windowEnds, double steadyP50, double tolerance) {
+        double limit = steadyP50 * (1 + tolerance);
+        for (int point = rollingP50.length - 1; point >= 0; point--) {
+            if (rollingP50[point] > limit) {
+                return point == rollingP50.length - 1 ? -1 : windowEnds[point + 1];
+            }
+        }
+        return windowEnds[0];
+    }
+
+    private static double median(long[] values, int from, int to) {
+        long[] window = Arrays.copyOfRange(values, from, to);
+        Arrays.sort(window);
+        int middle = window.length / 2;
+        return window.length % 2 == 1 ? window[middle] : (window[middle - 1] + window[middle]) / 2.0;
+    }
+
+    // Written directly rather than through savePerformanceMetricsToCSV, which prints every row to the console
+    private void writeRequests(Path path, long[][] latencies) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path.toFile()))) {
+            writer.println(REQUEST_INDEX_COLUMN + "," + String.join(",", OPERATIONS));
+            for (int i = 0; i < requests; i++) {
+                StringBuilder row = new StringBuilder().append(i + 1);
+                for (long[] operation : latencies) {
+                    row.append(',').append(String.format("%.3f", operation[i] / 1_000_000.0));
+                }
+                writer.println(row);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file", e);
+        }
+    }
+
+    private void writeCurve(Path path, int[] windowEnds, double[][] rollingP50) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(path.toFile()))) {
+            StringBuilder header = new StringBuilder(REQUEST_INDEX_COLUMN);
+            for (String operation : OPERATIONS) {
+                header.append(',').append(operation).append(ROLLING_P50_SUFFIX);
+            }
+            writer.println(header);
+            for (int point = 0; point < windowEnds.length; point++) {
+                StringBuilder row = new StringBuilder().append(windowEnds[point]);
+                for (double[] operation : rollingP50) {
+                    row.append(',').append(String.format("%.3f", operation[point]));
+                }
+                writer.println(row);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing CSV file", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package general;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+// The steady-state arithmetic alone, on made-up rolling p50 curves, so no server is started
+public class WarmupCurveRecorderTest {
+
+    private static final int[] WINDOW_ENDS = { 100, 200, 300, 400, 500, 600, 700, 800 };
+
+    @Test
+    public void settledCurveReportsFirstWindowOfSettledRun() {
+        // Slow until the 4th window, one dip back below the limit on the way does not count as settled
+        double[] rollingP50 = { 9.0, 1.0, 6.0, 3.0, 1.05, 1.0, 1.0, 1.0 };
+        double steadyP50 = WarmupCurveRecorder.getSteadyP50(rollingP50);
+
+        assertEquals(1.0, steadyP50, 0);
+        assertEquals(500, WarmupCurveRecorder.getRequestsToSteadyState(rollingP50, WINDOW_ENDS, steadyP50, 0.1));
+    }
+
+    @Test
+    public void curveStillAboveLimitAtTheEndNeverSettles() {
+        double[] rollingP50 = { 9.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 3.0 };
+
+        assertEquals(-1, WarmupCurveRecorder.getRequestsToSteadyState(rollingP50, WINDOW_ENDS, 1.0, 0.1));
+    }
+
+    @Test
+    public void flatCurveIsSteadyFromTheFirstWindow() {
+        double[] rollingP50 = { 2.0, 2.0, 2.0, 2.0, 2.0, 2.0, 2.0, 2.0 };
+        double steadyP50 = WarmupCurveRecorder.getSteadyP50(rollingP50);
+
+        assertEquals(2.0, steadyP50, 0);
+        assertEquals(WINDOW_ENDS[0], WarmupCurveRecorder.getRequestsToSteadyState(rollingP50, WINDOW_ENDS, steadyP50, 0.1));
+    }
+}
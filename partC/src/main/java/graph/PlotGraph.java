@@ -5,6 +5,7 @@ import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.LogAxis;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.renderer.xy.*;
 import org.jfree.data.xy.XYSeries;
@@ -17,8 +18,23 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.List;
 
+import static general.CommonConstants.CLIENTS_COLUMN;
+import static general.CommonConstants.CPU_USAGE_COLUMN;
+import static general.CommonConstants.HEAP_COLUMN;
+import static general.CommonConstants.LATENCY_P99_COLUMN;
+import static general.CommonConstants.MEMORY_USAGE_COLUMN;
+import static general.CommonConstants.NUM_OBJECTS_COLUMN;
+import static general.CommonConstants.P99_LIMIT_COLUMN;
+import static general.CommonConstants.REQUEST_INDEX_COLUMN;
+import static general.CommonConstants.ROLLING_P50_SUFFIX;
+import static general.CommonConstants.SERVER_CPU_USAGE_COLUMN;
+import static general.CommonConstants.SERVER_RSS_COLUMN;
+import static general.CommonConstants.TIME_TAKEN_COLUMN;
+
 public class PlotGraph {
     String lowestMemoryValue;
     String highestMemoryValue;
@@ -29,10 +45,10 @@ public class PlotGraph {
         String updateCsvPath = Paths.get(System.getProperty("user.dir"), "partC", "results", "update" + endpoint + ".csv").toString();
         String deleteCsvPath = Paths.get(System.getProperty("user.dir"), "partC", "results", "delete" + endpoint + ".csv").toString();
 
-        // Parse CSV files
-        List<String[]> createData = parseCSV(createCsvPath);
-        List<String[]> updateData = parseCSV(updateCsvPath);
-        List<String[]> deleteData = parseCSV(deleteCsvPath);
+        // Parse CSV files, keeping the single client rows when a run swept several client counts
+        List<String[]> createData = singleClientRows(parseCSV(createCsvPath));
+        List<String[]> updateData = singleClientRows(parseCSV(updateCsvPath));
+        List<String[]> deleteData = singleClientRows(parseCSV(deleteCsvPath));
 
         // Create paths for graphs
         String timeTakenGraphPath = Paths.get(System.getProperty("user.dir"), "partC", "graphs", "time_taken_" + endpoint + ".png").toString();
@@ -42,13 +58,82 @@ public class PlotGraph {
         getLowestAndHighestMemoryValues(createData, updateData, deleteData);
 
         // Plot time taken graph
-        plotGraph(createData, updateData, deleteData, 1, "Time Taken (ms)", "Number of " + endpoint, "Time Taken vs Number of " + endpoint, timeTakenGraphPath, false);
+        plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, TIME_TAKEN_COLUMN, "Time Taken (ms)", "Number of " + endpoint, "Time Taken vs Number of " + endpoint, timeTakenGraphPath, false);
 
         // Plot cpu usage graph
-        plotGraph(createData, updateData, deleteData, 2, "CPU Usage (%)", "Number of " + endpoint, "CPU Usage vs Number of " + endpoint, cpuUsageGraphPath, false);
+        plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, CPU_USAGE_COLUMN, "CPU Usage (%)", "Number of " + endpoint, "CPU Usage vs Number of " + endpoint, cpuUsageGraphPath, false);
 
         // Plot free memory graph
-        plotGraph(createData, updateData, deleteData, 3, "Free Available Memory (MB)", "Number of " + endpoint, "Free Available Memory vs Number of " + endpoint, freeMemoryGraphPath, true);
+        plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, MEMORY_USAGE_COLUMN, "Free Available Memory (MB)", "Number of " + endpoint, "Free Available Memory vs Number of " + endpoint, freeMemoryGraphPath, true);
+
+        // Plot the server process's own CPU and memory, when the runs sampled it
+        if (columnIndex(createData, SERVER_CPU_USAGE_COLUMN) >= 0) {
+            String serverCpuGraphPath = Paths.get(System.getProperty("user.dir"), "partC", "graphs", "server_cpu_usage_" + endpoint + ".png").toString();
+            String serverRssGraphPath = Paths.get(System.getProperty("user.dir"), "partC", "graphs", "server_rss_" + endpoint + ".png").toString();
+            plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, SERVER_CPU_USAGE_COLUMN, "Server CPU Usage (%)", "Number of " + endpoint, "Server CPU Usage vs Number of " + endpoint, serverCpuGraphPath, false);
+            plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, SERVER_RSS_COLUMN, "Server RSS (MB)", "Number of " + endpoint, "Server RSS vs Number of " + endpoint, serverRssGraphPath, false);
+        }
+
+        // Plot tail latency graph, when the runs recorded per-request latencies
+        if (columnIndex(createData, LATENCY_P99_COLUMN) >= 0) {
+            String latencyGraphPath = Paths.get(System.getProperty("user.dir"), "partC", "graphs", "latency_p99_" + endpoint + ".png").toString();
+            plotGraph(createData, updateData, deleteData, NUM_OBJECTS_COLUMN, LATENCY_P99_COLUMN, "p99 Latency (ms)", "Number of " + endpoint, "p99 Latency vs Number of " + endpoint, latencyGraphPath, false);
+        }
+
+        // Plot time taken against concurrent clients for the largest batch, when the runs swept clients
+        List<String[]> createClientData = largestBatchRows(parseCSV(createCsvPath));
+        if (createClientData.size() > 2) {
+            String clientsGraphPath = Paths.get(System.getProperty("user.dir"), "partC", "graphs", "time_taken_vs_clients_" + endpoint + ".png").toString();
+            plotGraph(createClientData, largestBatchRows(parseCSV(updateCsvPath)), largestBatchRows(parseCSV(deleteCsvPath)), CLIENTS_COLUMN, TIME_TAKEN_COLUMN, "Time Taken (ms)", "Concurrent Clients", "Time Taken vs Concurrent Clients for " + createClientData.get(1)[columnIndex(createClientData, NUM_OBJECTS_COLUMN)] + " " + endpoint, clientsGraphPath, false);
+        }
+    }
+
+    // Position of a column in the header row, -1 when the CSV predates that column
+    private int columnIndex(List<String[]> data, String column) {
+        if (data.isEmpty()) {
+            return -1;
+        }
+        String[] header = data.get(0);
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].trim().equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<String[]> singleClientRows(List<String[]> data) {
+        int clientsIndex = columnIndex(data, CLIENTS_COLUMN);
+        if (clientsIndex < 0) {
+            return data;
+        }
+        List<String[]> rows = new ArrayList<>();
+        rows.add(data.get(0));
+        for (int i = 1; i < data.size(); i++) {
+            if (data.get(i)[clientsIndex].trim().equals("1")) {
+                rows.add(data.get(i));
+            }
+        }
+        return rows;
+    }
+
+    private List<String[]> largestBatchRows(List<String[]> data) {
+        int numObjectsIndex = columnIndex(data, NUM_OBJECTS_COLUMN);
+        List<String[]> rows = new ArrayList<>();
+        if (data.isEmpty() || columnIndex(data, CLIENTS_COLUMN) < 0) {
+            return rows;
+        }
+        double largest = -1;
+        for (int i = 1; i < data.size(); i++) {
+            largest = Math.max(largest, Double.parseDouble(data.get(i)[numObjectsIndex]));
+        }
+        rows.add(data.get(0));
+        for (int i = 1; i < data.size(); i++) {
+            if (Double.parseDouble(data.get(i)[numObjectsIndex]) == largest) {
+                rows.add(data.get(i));
+            }
+        }
+        return rows;
     }
 
     private List<String[]> parseCSV(String csvFilePath) {
@@ -64,10 +149,11 @@ public class PlotGraph {
         double highest = Double.MIN_VALUE;
 
         for (List<String[]> dataList : List.of(createData, updateData, deleteData)) {
+            int memoryIndex = columnIndex(dataList, MEMORY_USAGE_COLUMN);
             for (int i = 1; i < dataList.size(); i++) {
                 String[] row = dataList.get(i);
                 try {
-                    double memoryValue = Double.parseDouble(row[3]);
+                    double memoryValue = Double.parseDouble(row[memoryIndex]);
                     if (memoryValue < lowest) {
                         lowest = memoryValue;
                     }
@@ -84,7 +170,7 @@ public class PlotGraph {
         highestMemoryValue = String.valueOf(highest);
     }
 
-    private void plotGraph(List<String[]> createData, List<String[]> updateData, List<String[]> deleteData, int columnIndex, String yAxisLabel, String xAxisLabel, String chartTitle, String outputFileName, boolean scale) {
+    private void plotGraph(List<String[]> createData, List<String[]> updateData, List<String[]> deleteData, String xColumn, String yColumn, String yAxisLabel, String xAxisLabel, String chartTitle, String outputFileName, boolean scale) {
         XYSeriesCollection dataset = new XYSeriesCollection();
         XYSeries seriesCreate = new XYSeries("Created");
         XYSeries seriesUpdate = new XYSeries("Updated");
@@ -94,8 +180,8 @@ public class PlotGraph {
         for (int i = 1; i < createData.size(); i++) {
             String[] row = createData.get(i);
             try {
-                double x = Double.parseDouble(row[0]);
-                double y = Double.parseDouble(row[columnIndex]);
+                double x = Double.parseDouble(row[columnIndex(createData, xColumn)]);
+                double y = Double.parseDouble(row[columnIndex(createData, yColumn)]);
                 seriesCreate.add(x, y);
             } catch (NumberFormatException e) {
                 System.err.println("Skipping row in createData: " + String.join(",", row));
@@ -105,8 +191,8 @@ public class PlotGraph {
         for (int i = 1; i < updateData.size(); i++) {
             String[] row = updateData.get(i);
             try {
-                double x = Double.parseDouble(row[0]);
-                double y = Double.parseDouble(row[columnIndex]);
+                double x = Double.parseDouble(row[columnIndex(updateData, xColumn)]);
+                double y = Double.parseDouble(row[columnIndex(updateData, yColumn)]);
                 seriesUpdate.add(x, y);
             } catch (NumberFormatException e) {
                 System.err.println("Skipping row in updateData: " + String.join(",", row));
@@ -116,8 +202,8 @@ public class PlotGraph {
         for (int i = 1; i < deleteData.size(); i++) {
             String[] row = deleteData.get(i);
             try {
-                double x = Double.parseDouble(row[0]);
-                double y = Double.parseDouble(row[columnIndex]);
+                double x = Double.parseDouble(row[columnIndex(deleteData, xColumn)]);
+                double y = Double.parseDouble(row[columnIndex(deleteData, yColumn)]);
                 seriesDelete.add(x, y);
             } catch (NumberFormatException e) {
                 System.err.println("Skipping row in deleteData: " + String.join(",", row));
@@ -163,6 +249,99 @@ public class PlotGraph {
         plot.setRangeGridlinesVisible(true);
         plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
 
+        saveAndDisplay(chart, chartTitle, outputFileName);
+    }
+
+    // Heap/latency curve from MinimumHeapFinder: p99 latency at each heap that completed the workload, against the limit
+    public void plotHeapCurve(String csvFilePath, String outputFileName) {
+        List<String[]> data = parseCSV(csvFilePath);
+        int heapIndex = columnIndex(data, HEAP_COLUMN);
+        int p99Index = columnIndex(data, LATENCY_P99_COLUMN);
+        int limitIndex = columnIndex(data, P99_LIMIT_COLUMN);
+
+        XYSeries seriesLatency = new XYSeries("p99 Latency");
+        XYSeries seriesLimit = new XYSeries("p99 Limit");
+        for (int i = 1; i < data.size(); i++) {
+            String[] row = data.get(i);
+            try {
+                // The unconstrained run has no heap to place it at, its p99 is what the limit comes from
+                double heap = Double.parseDouble(row[heapIndex]);
+                seriesLimit.add(heap, Double.parseDouble(row[limitIndex]));
+                seriesLatency.add(heap, Double.parseDouble(row[p99Index]));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.err.println("Skipping row in heap data: " + String.join(",", row));
+            }
+        }
+
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        dataset.addSeries(seriesLatency);
+        dataset.addSeries(seriesLimit);
+
+        String chartTitle = "p99 Latency vs Server Heap";
+        JFreeChart chart = ChartFactory.createXYLineChart(chartTitle, "Heap (MB)", "p99 Latency (ms)", dataset);
+        chart.setBackgroundPaint(Color.WHITE);
+        chart.getPlot().setBackgroundPaint(Color.WHITE);
+
+        XYPlot plot = chart.getXYPlot();
+        XYLineAndShapeRenderer renderer = (XYLineAndShapeRenderer) plot.getRenderer();
+        renderer.setDefaultShapesVisible(true);
+        renderer.setSeriesStroke(0, new BasicStroke(3.0f)); // Latency
+        renderer.setSeriesStroke(1, new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, new float[] { 6.0f }, 0.0f)); // Limit
+        plot.setDomainGridlinesVisible(true);
+        plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+        plot.setRangeGridlinesVisible(true);
+        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+
+        saveAndDisplay(chart, chartTitle, outputFileName);
+    }
+
+    // One line per operation of the rolling p50 against the number of requests sent, from WarmupCurveRecorder
+    public void plotWarmupCurve(String csvFilePath, String outputFileName) {
+        List<String[]> data = parseCSV(csvFilePath);
+        int indexColumn = columnIndex(data, REQUEST_INDEX_COLUMN);
+
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        String[] header = data.get(0);
+        for (int column = 0; column < header.length; column++) {
+            if (!header[column].endsWith(ROLLING_P50_SUFFIX)) {
+                continue;
+            }
+            XYSeries series = new XYSeries(header[column].substring(0, header[column].length() - ROLLING_P50_SUFFIX.length()));
+            for (int i = 1; i < data.size(); i++) {
+                String[] row = data.get(i);
+                try {
+                    series.add(Double.parseDouble(row[indexColumn]), Double.parseDouble(row[column]));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    System.err.println("Skipping row in warm-up data: " + String.join(",", row));
+                }
+            }
+            dataset.addSeries(series);
+        }
+
+        String chartTitle = "Warm-up Curve: Rolling p50 Latency";
+        JFreeChart chart = ChartFactory.createXYLineChart(chartTitle, "Requests Sent", "Rolling p50 Latency (ms)", dataset);
+        chart.setBackgroundPaint(Color.WHITE);
+        chart.getPlot().setBackgroundPaint(Color.WHITE);
+
+        XYPlot plot = chart.getXYPlot();
+        // Cold requests are orders of magnitude slower than warm ones, a linear axis would flatten the steady part
+        LogAxis latencyAxis = new LogAxis("Rolling p50 Latency (ms)");
+        latencyAxis.setSmallestValue(0.001);
+        latencyAxis.setNumberFormatOverride(new DecimalFormat("0.###"));
+        plot.setRangeAxis(latencyAxis);
+        XYLineAndShapeRenderer renderer = (XYLineAndShapeRenderer) plot.getRenderer();
+        for (int series = 0; series < dataset.getSeriesCount(); series++) {
+            renderer.setSeriesStroke(series, new BasicStroke(2.0f));
+        }
+        plot.setDomainGridlinesVisible(true);
+        plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+        plot.setRangeGridlinesVisible(true);
+        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+
+        saveAndDisplay(chart, chartTitle, outputFileName);
+    }
+
+    private void saveAndDisplay(JFreeChart chart, String chartTitle, String outputFileName) {
         // Save as PNG
         try {
             ChartUtils.saveChartAsPNG(new File(outputFileName), chart, 800, 600);
@@ -171,7 +350,10 @@ public class PlotGraph {
             e.printStackTrace();
         }
 
-        // Display chart
+        // Display chart, unless there is no screen to show it on
+        if (GraphicsEnvironment.isHeadless()) {
+            return;
+        }
         JFrame frame = new JFrame(chartTitle);
         frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         frame.add(new ChartPanel(chart));
@@ -0,0 +1,196 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Empties collections of a server however many objects they hold. The collection's list is read with
+// JsonCollectionReader as it arrives and each DELETE is sent as soon as the object's id is read, at most
+// -Dbulk.concurrency of them in flight over connections one shared client keeps alive. Progress is printed every
+// second, failed DELETEs are counted rather than thrown. Run on its own it empties the server at -Dbulk.baseUrl
+public class BulkDeleter {
+    public static final String CONCURRENCY_PROPERTY = "bulk.concurrency";
+    public static final String BASE_URL_PROPERTY = "bulk.baseUrl";
+    public static final int DEFAULT_CONCURRENCY = 16;
+    public static final String DEFAULT_BASE_URL = "http://localhost:4567";
+
+    private static final String[] COLLECTIONS = { "todos", "projects", "categories" };
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // HTTP/1.1 so nothing tries to upgrade the connections the server keeps alive
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final int concurrency;
+
+    // What one deleteAll() did, objects that were already gone count as deleted
+    public static class Result {
+        private final String collection;
+        private final long deleted;
+        private final long errors;
+        private final long nanos;
+
+        Result(String collection, long deleted, long errors, long nanos) {
+            this.collection = collection;
+            this.deleted = deleted;
+            this.errors = errors;
+            this.nanos = nanos;
+        }
+
+        public long getDeleted() { return deleted; }
+        public long getErrors() { return errors; }
+        public long getNanos() { return nanos; }
+
+        public double getDeletesPerSecond() {
+            return nanos == 0 ? 0 : deleted * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d %s deleted in %.1f s (%.0f deletes/s), %d errors",
+                    deleted, collection, nanos / 1e9, getDeletesPerSecond(), errors);
+        }
+    }
+
+    public BulkDeleter(String baseUrl, int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1, got " + concurrency);
+        }
+        this.baseUrl = baseUrl.replaceAll("/+$", "");
+        this.concurrency = concurrency;
+    }
+
+    // A deleter for the server at baseUrl with -Dbulk.concurrency DELETEs in flight
+    public static BulkDeleter fromSystemProperties(String baseUrl) {
+        return new BulkDeleter(baseUrl, Integer.getInteger(CONCURRENCY_PROPERTY, DEFAULT_CONCURRENCY));
+    }
+
+    public static void main(String[] args) throws Exception {
+        BulkDeleter deleter = fromSystemProperties(System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL));
+        System.out.println("Deleting every todo, project and category at " + deleter.baseUrl + ", "
+                + deleter.concurrency + " at a time");
+        for (String collection : COLLECTIONS) {
+            System.out.println(deleter.deleteAll(collection));
+        }
+    }
+
+    // Deletes every object of the collection, e.g. "todos"
+    public Result deleteAll(String collection) throws IOException, InterruptedException {
+        return deleteAll(collection, title -> true);
+    }
+
+    // Deletes the objects of the collection whose title passes ownsTitle. A missing, null or non-value title is
+    // passed as null
+    public Result deleteAll(String collection, Predicate<String> ownsTitle) throws IOException, InterruptedException {
+        return deleteAll(collection, ownsTitle, Set.of());
+    }
+
+    // As deleteAll(collection, ownsTitle), but the objects whose id is in keepIds stay
+    public Result deleteAll(String collection, Predicate<String> ownsTitle, Set<String> keepIds)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<InputStream> listing = list(collection);
+
+        Semaphore window = new Semaphore(concurrency);
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong lastReport = new AtomicLong(start);
+        try (JsonCollectionReader<JsonNode> reader = JsonCollectionReader.open(listing.body(), collection, JsonNode.class)) {
+            if (listing.statusCode() != 200) {
+                throw new IOException("GET /" + collection + " returned " + listing.statusCode());
+            }
+            while (reader.hasNext()) {
+                JsonNode object = reader.next();
+                String id = getText(object.path("id"));
+                if (id == null || keepIds.contains(id) || !ownsTitle.test(getText(object.path("title")))) {
+                    continue;
+                }
+                window.acquire();
+                HttpRequest delete = HttpRequest.newBuilder(URI.create(baseUrl + "/" + collection + "/" + id))
+                        .DELETE()
+                        .build();
+                CLIENT.sendAsync(delete, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                    if (failure == null && (response.statusCode() == 200 || response.statusCode() == 404)) {
+                        deleted.incrementAndGet();
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    window.release();
+                    report(collection, start, lastReport, deleted, errors);
+                });
+            }
+        } finally {
+            // Whatever was sent finishes before the caller moves on, even when the list could not be read
+            window.acquire(concurrency);
+            window.release(concurrency);
+        }
+
+        Result result = new Result(collection, deleted.get(), errors.get(), System.nanoTime() - start);
+        if (result.getNanos() >= REPORT_INTERVAL_NANOS || result.getErrors() > 0) {
+            System.out.println(result);
+        }
+        return result;
+    }
+
+    // The ids of the collection's objects whose title passes ownsTitle, read as the list arrives
+    public Set<String> listIds(String collection, Predicate<String> ownsTitle) throws IOException {
+        Set<String> ids = new HashSet<>();
+        HttpResponse<InputStream> listing = list(collection);
+        try (JsonCollectionReader<JsonNode> reader = JsonCollectionReader.open(listing.body(), collection, JsonNode.class)) {
+            if (listing.statusCode() != 200) {
+                throw new IOException("GET /" + collection + " returned " + listing.statusCode());
+            }
+            while (reader.hasNext()) {
+                JsonNode object = reader.next();
+                String id = getText(object.path("id"));
+                if (id != null && ownsTitle.test(getText(object.path("title")))) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private HttpResponse<InputStream> list(String collection) throws IOException {
+        HttpRequest list = HttpRequest.newBuilder(URI.create(baseUrl + "/" + collection))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        try {
+            return CLIENT.send(list, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted listing /" + collection, e);
+        }
+    }
+
+    private static String getText(JsonNode value) {
+        return value.isValueNode() && !value.isNull() ? value.asText() : null;
+    }
+
+    // At most once a second, from whichever DELETE completes first after the interval
+    private static void report(String collection, long start, AtomicLong lastReport, AtomicLong deleted, AtomicLong errors) {
+        long now = System.nanoTime();
+        long last = lastReport.get();
+        if (now - last < REPORT_INTERVAL_NANOS || !lastReport.compareAndSet(last, now)) {
+            return;
+        }
+        long done = deleted.get();
+        System.out.println(String.format("Deleting %s: %d deleted (%.0f deletes/s), %d errors",
+                collection, done, done * 1e9 / (now - start), errors.get()));
+    }
+}
@@ -0,0 +1,109 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Iterates the objects of a collection list such as {"todos":[{...},{...}]} straight off the response stream, binding
+// one object at a time. A scan of 50000 todos then holds a single todo in memory instead of the whole body plus an
+// array of every object in it. Closing the reader closes the stream
+public class JsonCollectionReader<T> implements Iterator<T>, AutoCloseable {
+    // Scans only need some of the fields, the rest of each object is skipped
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final JsonParser parser;
+    private final Class<T> type;
+    // Whether the parser stands on the start of the next object, false once the list has ended
+    private boolean ready;
+    private boolean done;
+
+    private JsonCollectionReader(JsonParser parser, Class<T> type) {
+        this.parser = parser;
+        this.type = type;
+    }
+
+    // Positions a reader on the list named collection, a body without that list reads as empty
+    public static <T> JsonCollectionReader<T> open(InputStream body, String collection, Class<T> type) throws IOException {
+        JsonParser parser = JSON.getFactory().createParser(body);
+        JsonCollectionReader<T> reader = new JsonCollectionReader<>(parser, type);
+        try {
+            reader.done = !reader.seek(collection);
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    // Calls callback with every object of the list, returns how many there were
+    public static <T> long forEach(InputStream body, String collection, Class<T> type, Consumer<? super T> callback) throws IOException {
+        long count = 0;
+        try (JsonCollectionReader<T> reader = open(body, collection, type)) {
+            while (reader.hasNext()) {
+                callback.accept(reader.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean seek(String collection) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(collection) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ready) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        try {
+            JsonToken token = parser.nextToken();
+            // Anything but an object ends the scan, the server's lists only hold objects
+            ready = token == JsonToken.START_OBJECT;
+            done = !ready;
+            return ready;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the next object of the list", e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        try {
+            return JSON.readValue(parser, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read an object of the list as " + type.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,80 @@
+package server;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands out a free port for each server so several servers, in one JVM or in parallel test forks, never share one.
+// The kernel picks an ephemeral port nothing listens on, and a lock file under the temp directory reserves it until
+// release() so another JVM cannot be handed the same port before the server has bound it. The reservation matters:
+// the Todo Manager keeps running without listening when its port is taken, and the tests would talk to another
+// fork's server. -Dserver.port pins every server to one port instead, e.g. to attach a profiler
+public class PortAllocator {
+    public static final String PORT_PROPERTY = "server.port";
+
+    private static final int ATTEMPTS = 50;
+    // Left behind empty on release, deleting a lock file another JVM has open would let two JVMs lock the same port
+    private static final Path LOCK_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), "todo-manager-ports");
+    // Lock files this JVM holds, by port
+    private static final Map<Integer, FileChannel> RESERVED = new ConcurrentHashMap<>();
+
+    private PortAllocator() {}
+
+    public static int allocate() throws IOException {
+        Integer pinned = Integer.getInteger(PORT_PROPERTY);
+        if (pinned != null) {
+            return pinned;
+        }
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            if (reserve(port)) {
+                return port;
+            }
+        }
+        throw new IOException("No free port found in " + ATTEMPTS + " attempts");
+    }
+
+    // Lets the port be handed out again, once the server on it has exited
+    public static void release(int port) {
+        FileChannel channel = RESERVED.remove(port);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // The lock goes with the channel either way
+            }
+        }
+    }
+
+    private static boolean reserve(int port) throws IOException {
+        if (RESERVED.containsKey(port)) {
+            return false;
+        }
+        Files.createDirectories(LOCK_DIRECTORY);
+        FileChannel channel = FileChannel.open(LOCK_DIRECTORY.resolve(port + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            return false;
+        }
+        RESERVED.put(port, channel);
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// JVM options the Todo Manager server is launched with: heap size, garbage collector and any extra flags.
+// Read from -Dserver.heap=512m -Dserver.gc=g1|parallel|serial|zgc -Dserver.jvmArgs="-XX:..." (and -Dserver.profile=name).
+// -Dserver.cdsArchive=todoManager.jsa launches it with an AppCDS archive, see partC's CdsArchiveTrainer
+public class ServerLaunchProfile {
+    public static final String PROFILE_PROPERTY = "server.profile";
+    public static final String HEAP_PROPERTY = "server.heap";
+    public static final String GC_PROPERTY = "server.gc";
+    public static final String JVM_ARGS_PROPERTY = "server.jvmArgs";
+    public static final String CDS_ARCHIVE_PROPERTY = "server.cdsArchive";
+    public static final String DEFAULT_PROFILE_NAME = "default";
+
+    public enum GarbageCollector {
+        G1("-XX:+UseG1GC"),
+        PARALLEL("-XX:+UseParallelGC"),
+        SERIAL("-XX:+UseSerialGC"),
+        ZGC("-XX:+UseZGC");
+
+        private final String flag;
+
+        GarbageCollector(String flag) {
+            this.flag = flag;
+        }
+
+        public String getFlag() {
+            return flag;
+        }
+    }
+
+    private final String name;
+    private final String heap;
+    private final GarbageCollector gc;
+    private final List<String> extraJvmArgs;
+    private final String cdsArchive;
+
+    public ServerLaunchProfile(String name, String heap, GarbageCollector gc, List<String> extraJvmArgs) {
+        this(name, heap, gc, extraJvmArgs, null);
+    }
+
+    public ServerLaunchProfile(String name, String heap, GarbageCollector gc, List<String> extraJvmArgs, String cdsArchive) {
+        this.heap = heap == null || heap.isBlank() ? null : heap.trim();
+        this.gc = gc;
+        this.cdsArchive = cdsArchive == null || cdsArchive.isBlank() ? null : cdsArchive.trim();
+        this.extraJvmArgs = List.copyOf(extraJvmArgs);
+        this.name = name == null || name.isBlank() ? deriveName() : name.trim();
+    }
+
+    // The JVM's own defaults, what the server was always launched with
+    public static ServerLaunchProfile defaults() {
+        return new ServerLaunchProfile(DEFAULT_PROFILE_NAME, null, null, List.of());
+    }
+
+    public static ServerLaunchProfile fromSystemProperties() {
+        return new ServerLaunchProfile(System.getProperty(PROFILE_PROPERTY), System.getProperty(HEAP_PROPERTY),
+                parseGc(System.getProperty(GC_PROPERTY)), splitArgs(System.getProperty(JVM_ARGS_PROPERTY)),
+                System.getProperty(CDS_ARCHIVE_PROPERTY));
+    }
+
+    // Parses "gc[/heap[/extra flags]]", e.g. "zgc/1g/-XX:+AlwaysPreTouch -XX:ConcGCThreads=2", an empty part keeps the JVM default
+    public static ServerLaunchProfile parse(String spec) {
+        String[] parts = spec.trim().split("/", 3);
+        GarbageCollector gc = parseGc(parts[0]);
+        String heap = parts.length > 1 ? parts[1] : null;
+        List<String> extraJvmArgs = parts.length > 2 ? splitArgs(parts[2]) : List.of();
+        return new ServerLaunchProfile(null, heap, gc, extraJvmArgs);
+    }
+
+    private static GarbageCollector parseGc(String gc) {
+        if (gc == null || gc.isBlank() || gc.trim().equalsIgnoreCase(DEFAULT_PROFILE_NAME)) {
+            return null;
+        }
+        try {
+            return GarbageCollector.valueOf(gc.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown garbage collector '" + gc + "', expected one of "
+                    + Arrays.toString(GarbageCollector.values()), e);
+        }
+    }
+
+    private static List<String> splitArgs(String args) {
+        if (args == null || args.isBlank()) {
+            return List.of();
+        }
+        return Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    private String deriveName() {
+        List<String> parts = new ArrayList<>();
+        parts.add(gc == null ? DEFAULT_PROFILE_NAME : gc.name().toLowerCase(Locale.ROOT));
+        if (heap != null) {
+            parts.add(heap.toLowerCase(Locale.ROOT));
+        }
+        if (!extraJvmArgs.isEmpty()) {
+            // Keeps names of profiles that only differ in their flags apart, and safe to use as a directory
+            parts.add(Integer.toHexString(String.join(" ", extraJvmArgs).hashCode()));
+        }
+        if (cdsArchive != null) {
+            parts.add("cds");
+        }
+        return String.join("_", parts);
+    }
+
+    // Same collector and flags with a different heap, null for the JVM's default heap, and any extra flags appended
+    public ServerLaunchProfile withHeap(String heap, String... moreJvmArgs) {
+        List<String> jvmArgs = new ArrayList<>(extraJvmArgs);
+        jvmArgs.addAll(Arrays.asList(moreJvmArgs));
+        return new ServerLaunchProfile(null, heap, gc, jvmArgs, cdsArchive);
+    }
+
+    // Same heap, collector and flags with more flags appended
+    public ServerLaunchProfile withExtraJvmArgs(String... moreJvmArgs) {
+        return withHeap(heap, moreJvmArgs);
+    }
+
+    // Same heap, collector and flags launched with the given AppCDS archive, or without one for null
+    public ServerLaunchProfile withCdsArchive(String cdsArchive) {
+        return new ServerLaunchProfile(null, heap, gc, extraJvmArgs, cdsArchive);
+    }
+
+    public String getCdsArchive() {
+        return cdsArchive;
+    }
+
+    public List<String> getJvmArgs() {
+        List<String> args = new ArrayList<>();
+        if (heap != null) {
+            // A fixed heap so runs are not measuring the heap growing
+            args.add("-Xms" + heap);
+            args.add("-Xmx" + heap);
+        }
+        if (gc != null) {
+            args.add(gc.getFlag());
+        }
+        if (cdsArchive != null) {
+            // A missing or mismatched archive only makes the JVM warn and start without it
+            args.add("-XX:SharedArchiveFile=" + cdsArchive);
+        }
+        args.addAll(extraJvmArgs);
+        return args;
+    }
+
+    public List<String> command(String pathToServerJar) {
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.addAll(getJvmArgs());
+        command.add("-jar");
+        command.add(pathToServerJar);
+        return command;
+    }
+
+    public boolean isDefault() {
+        return heap == null && gc == null && extraJvmArgs.isEmpty() && cdsArchive == null;
+    }
+
+    // Makes this the profile fromSystemProperties() returns, so servers started afterwards use it
+    public void applyToSystemProperties() {
+        System.setProperty(PROFILE_PROPERTY, name);
+        setOrClear(HEAP_PROPERTY, heap);
+        setOrClear(GC_PROPERTY, gc == null ? null : gc.name().toLowerCase(Locale.ROOT));
+        setOrClear(JVM_ARGS_PROPERTY, extraJvmArgs.isEmpty() ? null : String.join(" ", extraJvmArgs));
+        setOrClear(CDS_ARCHIVE_PROPERTY, cdsArchive);
+    }
+
+    private static void setOrClear(String property, String value) {
+        if (value == null) {
+            System.clearProperty(property);
+        } else {
+            System.setProperty(property, value);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + getJvmArgs();
+    }
+}
@@ -0,0 +1,111 @@
+package server;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Launches the Todo Manager on a port of its own from PortAllocator, drains its output with a ServerLogDrainer and
+// waits with ServerReadiness until it answers. Every harness starts and stops its servers through here, so they all
+// wait for the same thing before the first test runs
+public class ServerLauncher {
+    // Answers 200 only once the API routes are registered
+    public static final String READINESS_PATH = "/todos";
+
+    // A server started by start(), running until stop()
+    public static class RunningServer {
+        private final int port;
+        private final Process process;
+        private final ServerLogDrainer log;
+        private final long spawnEpochMillis;
+        private ServerReadiness.StartupTimings timings;
+        private boolean stopped;
+
+        private RunningServer(int port, Process process, ServerLogDrainer log, long spawnEpochMillis) {
+            this.port = port;
+            this.process = process;
+            this.log = log;
+            this.spawnEpochMillis = spawnEpochMillis;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        // Without a trailing slash, e.g. http://localhost:4567
+        public String getBaseUrl() {
+            return "http://localhost:" + port;
+        }
+
+        public long getPid() {
+            return process.pid();
+        }
+
+        public boolean isAlive() {
+            return !stopped && process.isAlive();
+        }
+
+        // The server's last lines, still readable after it has stopped
+        public ServerLogDrainer getLog() {
+            return log;
+        }
+
+        public ServerReadiness.StartupTimings getTimings() {
+            return timings;
+        }
+
+        // System.currentTimeMillis() just before the process was spawned
+        public long getSpawnEpochMillis() {
+            return spawnEpochMillis;
+        }
+
+        // Waits for the server to exit and gives its port back. Does nothing the second time, so a port another
+        // server has been given since is never released
+        public synchronized void stop() throws InterruptedException {
+            if (stopped) {
+                return;
+            }
+            process.destroy();
+            process.waitFor();
+            release();
+        }
+
+        private synchronized void kill() throws InterruptedException {
+            process.destroyForcibly();
+            process.waitFor();
+            release();
+        }
+
+        private void release() {
+            stopped = true;
+            log.close();
+            PortAllocator.release(port);
+        }
+    }
+
+    // Starts a server with the profile's JVM options and returns once it answers, also writing its output to logFile
+    // unless that is null. A server that exits or does not answer in time is killed and its port released
+    public static RunningServer start(String pathToServerJar, ServerLaunchProfile profile, Path logFile) throws Exception {
+        int port = PortAllocator.allocate();
+        List<String> command = profile.command(pathToServerJar);
+        command.add("-port=" + port);
+
+        long spawnNanos = System.nanoTime();
+        long spawnEpochMillis = System.currentTimeMillis();
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (Exception e) {
+            PortAllocator.release(port);
+            throw e;
+        }
+        // Drained on its own thread so the server never blocks on a full pipe
+        RunningServer server = new RunningServer(port, process, ServerLogDrainer.start(process, logFile), spawnEpochMillis);
+        try {
+            server.timings = ServerReadiness.await(process, server.log, server.getBaseUrl() + READINESS_PATH,
+                    spawnNanos, spawnEpochMillis, ServerReadiness.getStartupTimeoutMillis());
+        } catch (Exception e) {
+            server.kill();
+            throw e;
+        }
+        return server;
+    }
+}
@@ -0,0 +1,357 @@
+package server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Keeps one server alive for a whole test run when -Dserver.reuse=true. After each test the todos, projects and
+// categories the test created are deleted and the remaining state is checked against what the server started with.
+// Which of deleting and restarting is cheaper is decided for every reset: the objects the harness reported through
+// recordCreated() are priced at the measured time of a DELETE plus the lists that verify the state, against the
+// measured time of a stop and a start. The lists that verify the state also find what was created without being
+// reported, which is priced and deleted the same way. The server is also restarted when the state does not match,
+// e.g. because a test changed or deleted one of the default objects. Without -Dserver.reuse every test gets a fresh
+// server. Reuse is opt-in because the server's id counters keep counting: tests that expect the ids a fresh server
+// hands out need a restart. The time saved against restarting for every test is printed when the JVM exits.
+// Tests running in parallel each run on one thread, so every thread has a manager and a server of its own
+public class ServerLifecycleManager {
+    public static final String REUSE_PROPERTY = "server.reuse";
+
+    private static final String[] COLLECTIONS = { "todos", "projects", "categories" };
+    // Which collection an object created through each endpoint lands in
+    private static final Map<String, String> CREATED_THROUGH = Map.of(
+            "todos", "todos",
+            "projects", "projects",
+            "categories", "categories",
+            "tasks", "todos",
+            "tasksof", "projects");
+    // The first id of a body is the created object's own, its relationships come after it
+    private static final Pattern JSON_ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern XML_ID = Pattern.compile("<id>([^<]+)</id>");
+    private static final ThreadLocal<ServerLifecycleManager> INSTANCES = ThreadLocal.withInitial(() -> {
+        ServerLifecycleManager manager = new ServerLifecycleManager(Boolean.getBoolean(REUSE_PROPERTY));
+        Runtime.getRuntime().addShutdownHook(new Thread(manager::shutdown, "server-lifecycle-shutdown"));
+        return manager;
+    });
+
+    // How a test harness starts and stops its server, and where the one it started listens
+    public interface ServerControl {
+        void start() throws Exception;
+
+        void stop() throws Exception;
+
+        String getBaseUrl();
+    }
+
+    private final boolean reuse;
+
+    private ServerControl control;
+    private boolean running;
+    private Map<String, Map<String, JsonNode>> baseline;
+    // Objects the current test reported creating, e.g. "todos/7"
+    private final Set<String> created = new LinkedHashSet<>();
+
+    private int tests;
+    private int resets;
+    private long resetNanos;
+    // A restart is a stop and a start, each measured on its own as the first start has no stop before it
+    private int starts;
+    private long startNanos;
+    private int stops;
+    private long stopNanos;
+    // Restarts chosen because deleting was estimated to take longer, and by how much in total
+    private int costlyResets;
+    private double avoidedNanos;
+    // Every DELETE and list the manager sent itself, what the cost of a reset is estimated from
+    private long deletes;
+    private long deleteNanos;
+    private long lists;
+    private long listNanos;
+
+    private ServerLifecycleManager(boolean reuse) {
+        this.reuse = reuse;
+    }
+
+    // The manager of the calling thread, so the server outlives the test or scenario that started it
+    public static ServerLifecycleManager getInstance() {
+        return INSTANCES.get();
+    }
+
+    public boolean isReuseEnabled() {
+        return reuse;
+    }
+
+    // Starts a server unless the one from the previous test was reset and kept
+    public synchronized void beforeTest(ServerControl control) throws Exception {
+        this.control = control;
+        tests++;
+        created.clear();
+        if (running) {
+            return;
+        }
+        long start = System.nanoTime();
+        control.start();
+        startNanos += System.nanoTime() - start;
+        starts++;
+        running = true;
+        if (reuse) {
+            baseline = snapshot();
+        }
+    }
+
+    // Tells the manager the test created the object at path, e.g. "todos/7", on the server at baseUrl. Objects on
+    // any other server, such as one scenarios share, are ignored
+    public synchronized void recordCreated(String baseUrl, String path) {
+        if (!reuse || !running || !trimSlashes(baseUrl).equals(trimSlashes(control.getBaseUrl()))) {
+            return;
+        }
+        created.add(trimSlashes(path));
+    }
+
+    // Records the object a request to endpoint created, if it created one, see getCreatedPath()
+    public void recordResponse(String baseUrl, String method, String endpoint, int status, String body) {
+        if (!reuse) {
+            return;
+        }
+        String path = getCreatedPath(method, endpoint, status, body);
+        if (path != null) {
+            recordCreated(baseUrl, path);
+        }
+    }
+
+    // The path of the object a request created, e.g. "todos/7", null when it created none. Objects are created by a
+    // POST answered 201 with the new object, through their collection or a relationship such as POST /projects/1/tasks.
+    // endpoint is a path relative to the server or a whole URL
+    public static String getCreatedPath(String method, String endpoint, int status, String body) {
+        if (status != 201 || !"POST".equalsIgnoreCase(method) || body == null) {
+            return null;
+        }
+        String path = endpoint.contains("://") ? URI.create(endpoint).getPath() : endpoint.replaceAll("\\?.*$", "");
+        String[] segments = trimSlashes(path).split("/");
+        String collection = CREATED_THROUGH.get(segments[segments.length - 1]);
+        if (collection == null) {
+            return null;
+        }
+        // Linking an existing object also answers 201, but without a body
+        Matcher id = JSON_ID.matcher(body);
+        if (!id.find()) {
+            id = XML_ID.matcher(body);
+            if (!id.find()) {
+                return null;
+            }
+        }
+        return collection + "/" + id.group(1);
+    }
+
+    // Stops the server, or with reuse puts it back in its starting state and keeps it for the next test
+    public synchronized void afterTest(ServerControl control) throws Exception {
+        if (!running) {
+            return;
+        }
+        if (!reuse) {
+            stop(control);
+            return;
+        }
+
+        long start = System.nanoTime();
+        String problem = reset();
+        long elapsed = System.nanoTime() - start;
+        if (problem == null) {
+            resets++;
+            resetNanos += elapsed;
+            // Printed as it goes too, surefire stops reading a forked JVM's output before its shutdown hooks run
+            System.out.println(String.format("Server reset in %.1f ms instead of a restart (%.1f ms), %.1f s saved so far",
+                    elapsed / 1e6, getMeanRestartNanos() / 1e6, (getSavedMillis() + avoidedNanos / 1e6) / 1000));
+        } else {
+            System.out.println("Restarting the server instead of reusing it: " + problem);
+            // Time spent on a reset that was given up on is still time the suite spent
+            resetNanos += elapsed;
+            stop(control);
+        }
+    }
+
+    // Null when the server is back in its starting state, otherwise why it could not be reset
+    private String reset() {
+        List<String> reported = new ArrayList<>(created);
+        created.clear();
+        // Linking one of the objects the server started with can look like creating it, those are never deleted
+        reported.removeIf(path -> {
+            String[] object = path.split("/");
+            return baseline.get(object[0]).containsKey(object[1]);
+        });
+        try {
+            // Priced before anything is sent, from the reported objects alone
+            String problem = deleteUnlessRestartIsCheaper(reported);
+            if (problem != null) {
+                return problem;
+            }
+            Map<String, Map<String, JsonNode>> state = snapshot();
+            List<String> unreported = new ArrayList<>();
+            for (String collection : COLLECTIONS) {
+                for (String id : state.get(collection).keySet()) {
+                    if (!baseline.get(collection).containsKey(id)) {
+                        unreported.add(collection + "/" + id);
+                    }
+                }
+                for (String id : baseline.get(collection).keySet()) {
+                    if (!state.get(collection).containsKey(id)) {
+                        return collection + "/" + id + " was deleted";
+                    }
+                }
+            }
+            if (!unreported.isEmpty()) {
+                problem = deleteUnlessRestartIsCheaper(unreported);
+                if (problem != null) {
+                    return problem;
+                }
+                // Deleting them may have changed the relationships of the objects the server started with
+                state = snapshot();
+            }
+            if (!state.equals(baseline)) {
+                return reported.isEmpty() && unreported.isEmpty() ? "one of the objects it started with was changed"
+                        : "its state still differs from a fresh server after deleting "
+                        + (reported.size() + unreported.size()) + " objects";
+            }
+        } catch (IOException e) {
+            return "the reset failed: " + e.getMessage();
+        }
+        return null;
+    }
+
+    // Null when the objects were deleted, otherwise why the server is restarted instead
+    private String deleteUnlessRestartIsCheaper(List<String> objects) throws IOException {
+        if (objects.isEmpty()) {
+            return null;
+        }
+        double expectedNanos = estimateResetNanos(objects.size());
+        double restartCost = getMeanRestartNanos();
+        if (expectedNanos > restartCost) {
+            costlyResets++;
+            avoidedNanos += expectedNanos - restartCost;
+            return String.format("deleting %d objects would take about %.0f ms (%.2f ms each), a restart %.0f ms",
+                    objects.size(), expectedNanos / 1e6, getMeanDeleteNanos() / 1e6, restartCost / 1e6);
+        }
+        for (String object : objects) {
+            long start = System.nanoTime();
+            int status = send("DELETE", object);
+            deletes++;
+            deleteNanos += System.nanoTime() - start;
+            if (status != 200 && status != 404) {
+                return "DELETE " + object + " returned " + status;
+            }
+        }
+        return null;
+    }
+
+    private void stop(ServerControl control) throws Exception {
+        long start = System.nanoTime();
+        running = false;
+        control.stop();
+        stopNanos += System.nanoTime() - start;
+        stops++;
+    }
+
+    // The deletes plus the lists that verify them. Until a DELETE has been measured it is priced like a list,
+    // which only makes the first resets look more expensive than they are
+    private double estimateResetNanos(int objects) {
+        return objects * getMeanDeleteNanos() + COLLECTIONS.length * getMeanListNanos();
+    }
+
+    private double getMeanDeleteNanos() {
+        return deletes == 0 ? getMeanListNanos() : (double) deleteNanos / deletes;
+    }
+
+    private double getMeanListNanos() {
+        return lists == 0 ? 0 : (double) listNanos / lists;
+    }
+
+    // Every reset stood in for a restart of the average measured cost
+    private double getSavedMillis() {
+        return (resets * getMeanRestartNanos() - resetNanos) / 1e6;
+    }
+
+    // A stop and a start. Until a server has been stopped, the stop is left out
+    private double getMeanRestartNanos() {
+        return (starts == 0 ? 0 : (double) startNanos / starts) + (stops == 0 ? 0 : (double) stopNanos / stops);
+    }
+
+    // Every object of every collection by id, relationships included as the server lists them
+    private Map<String, Map<String, JsonNode>> snapshot() throws IOException {
+        Map<String, Map<String, JsonNode>> snapshot = new LinkedHashMap<>();
+        for (String collection : COLLECTIONS) {
+            Map<String, JsonNode> objects = new TreeMap<>();
+            list(collection, object -> objects.put(object.path("id").asText(), object));
+            snapshot.put(collection, objects);
+        }
+        return snapshot;
+    }
+
+    private void list(String collection, Consumer<JsonNode> callback) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = open("GET", collection);
+        try (InputStream body = connection.getInputStream()) {
+            JsonCollectionReader.forEach(body, collection, JsonNode.class, callback);
+        } finally {
+            connection.disconnect();
+            countList(start);
+        }
+    }
+
+    private int send(String method, String path) throws IOException {
+        HttpURLConnection connection = open(method, path);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void countList(long start) {
+        lists++;
+        listNanos += System.nanoTime() - start;
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(trimSlashes(control.getBaseUrl()) + "/" + path)
+                .toURL().openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        return connection;
+    }
+
+    private static String trimSlashes(String path) {
+        return path.replaceAll("^/+|/+$", "");
+    }
+
+    private synchronized void shutdown() {
+        if (running && control != null) {
+            try {
+                stop(control);
+            } catch (Exception e) {
+                System.err.println("Failed to stop the server: " + e.getMessage());
+            }
+        }
+        if (!reuse || tests == 0) {
+            return;
+        }
+        System.out.println(String.format("Server lifecycle: %d tests on %d servers, %d resets (mean %.1f ms) "
+                        + "instead of restarts (mean %.1f ms), %.1f s saved", tests, starts, resets,
+                resets == 0 ? 0 : resetNanos / 1e6 / resets, getMeanRestartNanos() / 1e6, getSavedMillis() / 1000));
+        System.out.println(String.format("Server lifecycle: a DELETE took %.2f ms and a list %.2f ms on average, "
+                        + "%d restarts chosen over slower deletes saved about %.1f s more", getMeanDeleteNanos() / 1e6,
+                getMeanListNanos() / 1e6, costlyResets, avoidedNanos / 1e9));
+    }
+}
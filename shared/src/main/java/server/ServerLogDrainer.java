@@ -0,0 +1,172 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the server's output on its own thread as fast as it is written, so the server never blocks on a full pipe.
+// The last lines are kept in a ring buffer, and every line can also go to a file, each stamped with the wall-clock
+// time it was read so log events can be lined up with latency spikes
+public class ServerLogDrainer implements AutoCloseable {
+    public static final String LOG_FILE_PROPERTY = "server.log";
+    public static final String LOG_LINES_PROPERTY = "server.log.lines";
+    public static final int DEFAULT_LOG_LINES = 1000;
+
+    private final InputStream output;
+    private final Path logFile;
+    private final Thread thread;
+
+    // Ring buffer of the last lines, guarded by this
+    private final long[] timestamps;
+    private final String[] lines;
+    private int next;
+    private long count;
+    private boolean finished;
+
+    public ServerLogDrainer(InputStream output, int capacity, Path logFile) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Log buffer must hold at least 1 line, got " + capacity);
+        }
+        this.output = output;
+        this.logFile = logFile;
+        this.timestamps = new long[capacity];
+        this.lines = new String[capacity];
+        this.thread = new Thread(this::drain, "server-log-drainer");
+        this.thread.setDaemon(true);
+    }
+
+    // Starts draining the process's stdout, which should have stderr redirected into it
+    public static ServerLogDrainer start(Process process, Path logFile) {
+        ServerLogDrainer drainer = new ServerLogDrainer(process.getInputStream(),
+                Integer.getInteger(LOG_LINES_PROPERTY, DEFAULT_LOG_LINES), logFile);
+        drainer.thread.start();
+        return drainer;
+    }
+
+    // The file from -Dserver.log, null when lines are only kept in memory
+    public static Path getLogFileFromSystemProperties() {
+        String logFile = System.getProperty(LOG_FILE_PROPERTY);
+        return logFile == null || logFile.isBlank() ? null : Path.of(logFile);
+    }
+
+    private void drain() {
+        BufferedWriter writer = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8))) {
+            if (logFile != null) {
+                if (logFile.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(logFile.toAbsolutePath().getParent());
+                }
+                // Appended to, so one file can hold the output of every server a test run starts
+                writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long timestamp = System.currentTimeMillis();
+                synchronized (this) {
+                    timestamps[next] = timestamp;
+                    lines[next] = line;
+                    next = (next + 1) % lines.length;
+                    count++;
+                    notifyAll();
+                }
+                if (writer != null) {
+                    writer.write(format(timestamp, line));
+                    writer.newLine();
+                    // Flush whenever the server goes quiet, not on every line
+                    if (!reader.ready()) {
+                        writer.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The stream closes when the server is destroyed, anything already read is kept
+        } finally {
+            synchronized (this) {
+                finished = true;
+                notifyAll();
+            }
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to close server log " + logFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String format(long timestamp, String line) {
+        return Instant.ofEpochMilli(timestamp) + " " + line;
+    }
+
+    // The buffered lines, oldest first, each prefixed with its timestamp
+    public synchronized List<String> getLines() {
+        int retained = (int) Math.min(count, lines.length);
+        int start = count <= lines.length ? 0 : next;
+        List<String> snapshot = new ArrayList<>(retained);
+        for (int i = 0; i < retained; i++) {
+            int index = (start + i) % lines.length;
+            snapshot.add(format(timestamps[index], lines[index]));
+        }
+        return snapshot;
+    }
+
+    public synchronized boolean contains(String text) {
+        for (String line : lines) {
+            if (line != null && line.contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Waits for a line containing text, returning the wall-clock time it was read, or -1 if the output ended
+    // or the timeout passed first. Only lines still in the buffer are searched
+    public synchronized long awaitLine(String text, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            int retained = (int) Math.min(count, lines.length);
+            int start = count <= lines.length ? 0 : next;
+            for (int i = 0; i < retained; i++) {
+                int index = (start + i) % lines.length;
+                if (lines[index].contains(text)) {
+                    return timestamps[index];
+                }
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (finished || remaining <= 0) {
+                return -1;
+            }
+            wait(remaining);
+        }
+    }
+
+    // Lines read in total, including those that have dropped out of the buffer
+    public synchronized long getLineCount() {
+        return count;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    // Waits for the rest of the output once the server has exited, so the file is complete
+    @Override
+    public void close() {
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
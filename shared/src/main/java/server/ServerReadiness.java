@@ -0,0 +1,141 @@
+package server;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Waits for a freshly launched server: first for its port to accept connections, probed with non-blocking connects
+// about every millisecond, then for a 200 from a readiness URL. Fails with the server's last output when the
+// process exits or the timeout passes, and reports how long each stage took from the moment it was spawned
+public class ServerReadiness {
+    public static final String STARTUP_TIMEOUT_PROPERTY = "server.startupTimeoutMs";
+    public static final long DEFAULT_STARTUP_TIMEOUT_MS = 30000;
+    // What the Todo Manager prints once it is listening
+    public static final String STARTUP_BANNER = "Running on";
+
+    private static final long PROBE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Durations from process spawn, in milliseconds
+    public static class StartupTimings {
+        private final double portOpenMillis;
+        private final double firstOkMillis;
+        private final double bannerMillis;
+        private final long spawnNanos;
+
+        StartupTimings(long spawnNanos, double portOpenMillis, double firstOkMillis, double bannerMillis) {
+            this.spawnNanos = spawnNanos;
+            this.portOpenMillis = portOpenMillis;
+            this.firstOkMillis = firstOkMillis;
+            this.bannerMillis = bannerMillis;
+        }
+
+        public double getPortOpenMillis() { return portOpenMillis; }
+        public double getFirstOkMillis() { return firstOkMillis; }
+        // -1 when the banner was not seen by the time the server answered
+        public double getBannerMillis() { return bannerMillis; }
+
+        // Milliseconds from spawn to a System.nanoTime() taken later, e.g. when a test's first request returns
+        public double millisSinceSpawn(long nanos) {
+            return (nanos - spawnNanos) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("port open after %.1f ms, first 200 after %.1f ms, banner after %s", portOpenMillis,
+                    firstOkMillis, bannerMillis < 0 ? "(not seen)" : String.format("%.1f ms", bannerMillis));
+        }
+    }
+
+    public static long getStartupTimeoutMillis() {
+        return Long.getLong(STARTUP_TIMEOUT_PROPERTY, DEFAULT_STARTUP_TIMEOUT_MS);
+    }
+
+    // spawnNanos and spawnEpochMillis are System.nanoTime() and System.currentTimeMillis() just before the process started
+    public static StartupTimings await(Process process, ServerLogDrainer log, String readinessUrl,
+                                       long spawnNanos, long spawnEpochMillis, long timeoutMillis) throws Exception {
+        URI uri = URI.create(readinessUrl);
+        InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort());
+        long deadline = spawnNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (!isPortOpen(address)) {
+            checkStillStarting(process, log, deadline, timeoutMillis, "port " + address.getPort() + " to open");
+            LockSupport.parkNanos(PROBE_INTERVAL_NANOS);
+        }
+        long portOpen = System.nanoTime();
+
+        // The port can open before the routes are registered, so wait for a real answer too
+        while (!isOk(readinessUrl)) {
+            checkStillStarting(process, log, deadline, timeoutMillis, readinessUrl + " to answer 200");
+            LockSupport.parkNanos(PROBE_INTERVAL_NANOS);
+        }
+        long firstOk = System.nanoTime();
+
+        // Logged around the time the port opens, so by now it is normally already buffered
+        long banner = log == null ? -1 : log.awaitLine(STARTUP_BANNER, 100);
+
+        return new StartupTimings(spawnNanos, (portOpen - spawnNanos) / 1_000_000.0, (firstOk - spawnNanos) / 1_000_000.0,
+                banner < 0 ? -1 : banner - spawnEpochMillis);
+    }
+
+    private static boolean isPortOpen(InetSocketAddress address) {
+        try (SocketChannel channel = SocketChannel.open(); Selector selector = Selector.open()) {
+            channel.configureBlocking(false);
+            if (channel.connect(address)) {
+                return true;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT);
+            // A refused connect on localhost is reported almost at once, so a millisecond is plenty
+            if (selector.select(1) == 0) {
+                return false;
+            }
+            return channel.finishConnect();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isOk(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            connection.setConnectTimeout(1000);
+            connection.setReadTimeout(5000);
+            return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static void checkStillStarting(Process process, ServerLogDrainer log, long deadline, long timeoutMillis, String waitingFor) {
+        String problem = null;
+        if (!process.isAlive()) {
+            problem = "Server exited with code " + process.exitValue() + " while waiting for " + waitingFor;
+        } else if (System.nanoTime() - deadline > 0) {
+            problem = "Server did not start within " + timeoutMillis + " ms (" + STARTUP_TIMEOUT_PROPERTY + ") while waiting for " + waitingFor;
+        }
+        if (problem == null) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder(problem);
+        if (log != null) {
+            List<String> lines = log.getLines();
+            message.append("\nLast server output:");
+            for (String line : lines.subList(Math.max(0, lines.size() - 20), lines.size())) {
+                message.append("\n  ").append(line);
+            }
+        }
+        throw new IllegalStateException(message.toString());
+    }
+}